@@ -0,0 +1,82 @@
+package org.resthub.web.springmvc.router.maven;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.resthub.web.springmvc.router.RouteSnapshot;
+import org.resthub.web.springmvc.router.exceptions.RouteFileParsingException;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+
+/**
+ * Validates route files and compiles them into a route snapshot, loaded by
+ * the RouterHandlerMapping instead of parsing the route files.
+ *
+ * <p>Route files are listed as in the RouterHandlerMapping configuration,
+ * in the same order, and looked up in the build output directory; a
+ * "classpath:" prefix is ignored.
+ */
+@Mojo(name = "compile-routes", defaultPhase = LifecyclePhase.PROCESS_CLASSES, threadSafe = true)
+public class CompileRoutesMojo extends AbstractMojo {
+
+    /**
+     * Route files, e.g. "routes.conf" or "routes/*.conf".
+     */
+    @Parameter(required = true)
+    private List<String> routeFiles;
+
+    /**
+     * Directory route files are looked up in.
+     */
+    @Parameter(defaultValue = "${project.build.outputDirectory}", required = true)
+    private File routesDirectory;
+
+    /**
+     * The route snapshot to write, to be configured as the "routeSnapshot"
+     * of the RouterHandlerMapping, e.g. "classpath:routes.snapshot".
+     */
+    @Parameter(defaultValue = "${project.build.outputDirectory}/routes.snapshot", required = true)
+    private File outputFile;
+
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        ResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+        List<Resource> resources = new ArrayList<Resource>();
+        try {
+            for (String routeFile : routeFiles) {
+                String location = routeFile.replaceFirst("^classpath\\*?:/?", "");
+                Resource[] found = resolver.getResources(new File(routesDirectory, location).toURI().toString());
+                // a location without wildcard is resolved even if missing
+                if (found.length == 0 || !found[0].exists()) {
+                    throw new MojoFailureException("Route file " + routeFile + " not found in " + routesDirectory);
+                }
+                resources.addAll(Arrays.asList(found));
+            }
+
+            outputFile.getParentFile().mkdirs();
+            OutputStream out = new FileOutputStream(outputFile);
+            try {
+                RouteSnapshot.compile(resources, out);
+            } finally {
+                out.close();
+            }
+        } catch (RouteFileParsingException e) {
+            outputFile.delete();
+            throw new MojoFailureException(e.getMessage(), e);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not compile route files", e);
+        }
+        getLog().info("Compiled " + resources.size() + " route files into " + outputFile);
+    }
+}
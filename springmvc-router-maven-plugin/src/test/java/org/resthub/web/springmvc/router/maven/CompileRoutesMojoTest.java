@@ -0,0 +1,101 @@
+package org.resthub.web.springmvc.router.maven;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.maven.plugin.MojoFailureException;
+import org.junit.Before;
+import org.junit.Test;
+import org.resthub.web.springmvc.router.Router;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.util.FileCopyUtils;
+
+/**
+ * Smoke tests of the compile-routes goal, run without a Maven build.
+ */
+public class CompileRoutesMojoTest {
+
+    private File routesDirectory;
+    private File outputFile;
+
+    @Before
+    public void setUp() throws Exception {
+        routesDirectory = new File(getClass().getResource("/routes.conf").toURI()).getParentFile();
+        outputFile = new File(routesDirectory, "snapshot-test/routes.snapshot");
+        outputFile.delete();
+    }
+
+    @Test
+    public void compilesRouteFilesIntoASnapshot() throws Exception {
+        mojo("classpath:routes.conf").execute();
+
+        assertTrue(outputFile.exists());
+        Resource routeFile = new FileSystemResource(new File(routesDirectory, "routes.conf"));
+        assertTrue(Router.load(Arrays.asList(routeFile), new FileSystemResource(outputFile)));
+        assertEquals(3, Router.getRoutes().size());
+        assertEquals("myTestController.paramAction", Router.route("GET", "/param/value").get("action"));
+        Router.clear();
+    }
+
+    @Test
+    public void failsOnInvalidRouteDefinitions() throws Exception {
+        try {
+            mojo("invalidroutes.conf").execute();
+            fail("Compiling invalid route definitions should fail");
+        } catch (MojoFailureException e) {
+            assertTrue(e.getMessage().contains("route path without '/'"));
+        }
+        assertFalse(outputFile.exists());
+    }
+
+    @Test
+    public void failsOnMissingRouteFiles() throws Exception {
+        try {
+            mojo("missing.conf").execute();
+            fail("Compiling a missing route file should fail");
+        } catch (MojoFailureException e) {
+            assertTrue(e.getMessage().contains("missing.conf"));
+        }
+        assertFalse(outputFile.exists());
+    }
+
+    @Test
+    public void generatesTheMojoDescriptor() throws Exception {
+        InputStream in = getClass().getResourceAsStream("/META-INF/maven/plugin.xml");
+        assertNotNull("The maven-plugin-plugin should generate the mojo descriptor", in);
+        String descriptor = FileCopyUtils.copyToString(new InputStreamReader(in, "UTF-8"));
+
+        assertTrue(descriptor.contains("<goalPrefix>springmvc-router</goalPrefix>"));
+        assertTrue(descriptor.contains("<goal>compile-routes</goal>"));
+        assertTrue(descriptor.contains("<phase>process-classes</phase>"));
+        assertTrue(descriptor.contains("<threadSafe>true</threadSafe>"));
+        for (String parameter : Arrays.asList("routeFiles", "routesDirectory", "outputFile")) {
+            assertTrue(parameter, descriptor.contains("<name>" + parameter + "</name>"));
+        }
+    }
+
+    private CompileRoutesMojo mojo(String routeFile) throws Exception {
+        CompileRoutesMojo mojo = new CompileRoutesMojo();
+        set(mojo, "routeFiles", Collections.singletonList(routeFile));
+        set(mojo, "routesDirectory", routesDirectory);
+        set(mojo, "outputFile", outputFile);
+        return mojo;
+    }
+
+    private static void set(Object mojo, String name, Object value) throws Exception {
+        Field field = mojo.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(mojo, value);
+    }
+}
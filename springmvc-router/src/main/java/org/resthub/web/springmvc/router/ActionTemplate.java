@@ -0,0 +1,161 @@
+package org.resthub.web.springmvc.router;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A route action with <code>{arg}</code> placeholders, e.g.
+ * <code>{controller}.{action}</code>, compiled when the route is computed.
+ *
+ * <p>The action of a request is resolved by {@link #expand(Map)}; handlers
+ * resolved for an action can be cached by {@link #key(Map)}, which only
+ * keeps the captured values.
+ */
+public final class ActionTemplate {
+
+    private final String source;
+    /**
+     * Literal parts of the action, around the placeholders.
+     */
+    private final String[] literals;
+    private final String[] argNames;
+
+    private ActionTemplate(String source, String[] literals, String[] argNames) {
+        this.source = source;
+        this.literals = literals;
+        this.argNames = argNames;
+    }
+
+    /**
+     * Compile a route action.
+     *
+     * @return the action template, or null if the action has no placeholder
+     */
+    static ActionTemplate compile(String action) {
+        List<String> literals = new ArrayList<String>();
+        List<String> argNames = new ArrayList<String>();
+        int start = 0;
+        int open = action.indexOf('{');
+        while (open > -1) {
+            int close = action.indexOf('}', open);
+            if (close < 0) {
+                break;
+            }
+            literals.add(action.substring(start, open));
+            argNames.add(action.substring(open + 1, close));
+            start = close + 1;
+            open = action.indexOf('{', start);
+        }
+        if (argNames.isEmpty()) {
+            return null;
+        }
+        literals.add(action.substring(start));
+        return new ActionTemplate(action, literals.toArray(new String[literals.size()]),
+                argNames.toArray(new String[argNames.size()]));
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Resolve the action of a request; placeholders without a value are
+     * left as is.
+     *
+     * @param args the arguments of the route matching the request
+     */
+    public String expand(Map<String, String> args) {
+        StringBuilder action = new StringBuilder(source.length() + 16);
+        for (int i = 0; i < argNames.length; i++) {
+            action.append(literals[i]);
+            String value = args.get(argNames[i]);
+            if (value == null) {
+                action.append('{').append(argNames[i]).append('}');
+            } else {
+                action.append(value);
+            }
+        }
+        return action.append(literals[argNames.length]).toString();
+    }
+
+    /**
+     * Returns a key identifying the action of a request, regardless of case
+     * (controllers and actions are looked up ignoring case).
+     *
+     * @param args the arguments of the route matching the request
+     */
+    public Key key(Map<String, String> args) {
+        String[] values = new String[argNames.length];
+        for (int i = 0; i < argNames.length; i++) {
+            values[i] = args.get(argNames[i]);
+        }
+        return new Key(source, values);
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+
+    /**
+     * An action template along with the values of its placeholders.
+     */
+    public static final class Key {
+
+        private final String source;
+        private final String[] values;
+        private final int hash;
+
+        Key(String source, String[] values) {
+            this.source = source;
+            this.values = values;
+            int h = source.hashCode();
+            for (String value : values) {
+                h = 31 * h + ((value == null) ? 0 : hashIgnoreCase(value));
+            }
+            this.hash = h;
+        }
+
+        private static int hashIgnoreCase(String value) {
+            int h = 0;
+            for (int i = 0; i < value.length(); i++) {
+                h = 31 * h + Character.toLowerCase(Character.toUpperCase(value.charAt(i)));
+            }
+            return h;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            if (hash != other.hash || !source.equals(other.source) || values.length != other.values.length) {
+                return false;
+            }
+            for (int i = 0; i < values.length; i++) {
+                String value = values[i];
+                String otherValue = other.values[i];
+                if (value == null ? otherValue != null : !value.equalsIgnoreCase(otherValue)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            return source + Arrays.toString(values);
+        }
+    }
+}
@@ -22,6 +22,7 @@ import java.util.*;
 public class HTTPRequestAdapter {
 
     private static final Logger logger = LoggerFactory.getLogger(HTTPRequestAdapter.class);
+
     
     /**
      * Server host
@@ -181,7 +182,8 @@ public class HTTPRequestAdapter {
             request.contentType = "text/html".intern();
         }
 
-        if (httpServletRequest.getHeader("X-HTTP-Method-Override") != null) {
+        if (Router.getMethodOverrideMode() != MethodOverrideMode.DISABLED
+                && httpServletRequest.getHeader("X-HTTP-Method-Override") != null) {
             request.method = httpServletRequest.getHeader(
                     "X-HTTP-Method-Override").intern();
         }
@@ -243,33 +245,39 @@ public class HTTPRequestAdapter {
 
         String accept = headers.get("accept").value();
 
+        String resolved = resolveFormat(accept);
+        if (resolved.length() > 0) {
+            format = resolved;
+        }
+    }
+
+    private static String resolveFormat(String accept) {
+
         if (accept.contains("application/xhtml")
                 || accept.contains("text/html")
                 || accept.startsWith("*/*")) {
-            format = "html".intern();
-            return;
+            return "html".intern();
         }
 
         if (accept.contains("application/xml")
                 || accept.contains("text/xml")) {
-            format = "xml".intern();
-            return;
+            return "xml".intern();
         }
 
         if (accept.contains("text/plain")) {
-            format = "txt".intern();
-            return;
+            return "txt".intern();
         }
 
         if (accept.contains("application/json")
                 || accept.contains("text/javascript")) {
-            format = "json".intern();
-            return;
+            return "json".intern();
         }
 
         if (accept.endsWith("*/*")) {
-            format = "html".intern();
+            return "html".intern();
         }
+
+        return "";
     }
 
     public class Header {
@@ -0,0 +1,27 @@
+package org.resthub.web.springmvc.router;
+
+/**
+ * Ways a request may override its HTTP method, for clients that can only
+ * send GET and POST requests.
+ *
+ * @see RouterHandlerMapping#setMethodOverrideMode(MethodOverrideMode)
+ */
+public enum MethodOverrideMode {
+
+    /**
+     * The method may be overridden by a <code>X-HTTP-Method-Override</code>
+     * header or a <code>x-http-method-override</code> query string parameter.
+     */
+    ENABLED,
+
+    /**
+     * The method may only be overridden by a
+     * <code>X-HTTP-Method-Override</code> header.
+     */
+    HEADER_ONLY,
+
+    /**
+     * The method of requests is never overridden.
+     */
+    DISABLED
+}
@@ -0,0 +1,30 @@
+package org.resthub.web.springmvc.router;
+
+/**
+ * When the regular expressions of routes are compiled: their path, host
+ * and argument patterns, used to match requests, and their action
+ * patterns, used for reverse routing.
+ *
+ * @see RouterHandlerMapping#setPatternCompilation(PatternCompilation)
+ */
+public enum PatternCompilation {
+
+    /**
+     * Patterns are compiled when routes are loaded.
+     */
+    EAGER,
+
+    /**
+     * Patterns are compiled the first time they are used, so that the
+     * startup time and memory of large route tables only depend on the
+     * routes actually hit. Invalid regular expressions are only reported
+     * when first used.
+     */
+    LAZY,
+
+    /**
+     * Patterns are compiled the first time they are used, or by a background
+     * thread compiling all of them once routes are loaded.
+     */
+    BACKGROUND
+}
@@ -0,0 +1,213 @@
+package org.resthub.web.springmvc.router;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Read-only view of the arguments of a route matching a request.
+ *
+ * <p>Values are not copied out of the request: path arguments are kept as
+ * offsets in the request path and only extracted when read, while the host
+ * argument and the static arguments of the route are looked up on demand.
+ * The keys of a route are laid out once, in a {@link Layout}.
+ */
+final class RouteArgs extends AbstractMap<String, String> {
+
+    static final int[] NO_BOUNDS = new int[0];
+
+    private final Layout layout;
+    private final String path;
+    private final int[] bounds;
+    private final String hostValue;
+
+    /**
+     * @param path      the request path
+     * @param bounds    start and end offsets in the path of each path
+     *                  argument value, in declaration order (-1 if the
+     *                  argument didn't participate in the match)
+     * @param hostValue the value of the host argument, or null if none
+     */
+    RouteArgs(Layout layout, String path, int[] bounds, String hostValue) {
+        this.layout = layout;
+        this.path = path;
+        this.bounds = bounds;
+        this.hostValue = hostValue;
+    }
+
+    @Override
+    public String get(Object key) {
+        int index = layout.indexOf(key);
+        return (index < 0) ? null : value(index);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        int index = layout.indexOf(key);
+        return index >= 0 && isPresent(index);
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (int i = 0; i < layout.keys.length; i++) {
+            if (isPresent(i)) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public Set<Map.Entry<String, String>> entrySet() {
+        return new AbstractSet<Map.Entry<String, String>>() {
+
+            @Override
+            public Iterator<Map.Entry<String, String>> iterator() {
+                return new Entries();
+            }
+
+            @Override
+            public int size() {
+                return RouteArgs.this.size();
+            }
+        };
+    }
+
+    /**
+     * The host argument is only there if the request has a host.
+     */
+    private boolean isPresent(int index) {
+        return layout.staticValues[index] != null || layout.pathIndexes[index] >= 0
+                || (layout.hostKeys[index] && hostValue != null);
+    }
+
+    private String value(int index) {
+        if (layout.staticValues[index] != null) {
+            return layout.staticValues[index];
+        }
+        if (layout.hostKeys[index] && hostValue != null) {
+            return hostValue;
+        }
+        int pathIndex = layout.pathIndexes[index];
+        if (pathIndex < 0 || 2 * pathIndex + 1 >= bounds.length) {
+            return null;
+        }
+        int start = bounds[2 * pathIndex];
+        int end = bounds[2 * pathIndex + 1];
+        return (start < 0 || end < 0) ? null : path.substring(start, end);
+    }
+
+    private final class Entries implements Iterator<Map.Entry<String, String>> {
+
+        private int next = advance(0);
+
+        private int advance(int from) {
+            int index = from;
+            while (index < layout.keys.length && !isPresent(index)) {
+                index++;
+            }
+            return index;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < layout.keys.length;
+        }
+
+        @Override
+        public Map.Entry<String, String> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int index = next;
+            next = advance(index + 1);
+            return new SimpleImmutableEntry<String, String>(layout.keys[index], value(index));
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * The distinct argument names of a route, and where their values come
+     * from: static arguments first, then the host argument, then the path
+     * arguments.
+     */
+    static final class Layout {
+
+        final String[] keys;
+        /**
+         * Index of each key among the path arguments, or -1.
+         */
+        final int[] pathIndexes;
+        final boolean[] hostKeys;
+        /**
+         * Static value of each key, or null.
+         */
+        final String[] staticValues;
+
+        Layout(List<String> pathArgNames, String hostArgName, Map<String, String> staticArgs) {
+            int capacity = pathArgNames.size() + 1 + staticArgs.size();
+            String[] names = new String[capacity];
+            int[] paths = new int[capacity];
+            boolean[] hosts = new boolean[capacity];
+            String[] statics = new String[capacity];
+            int count = 0;
+            for (int i = 0; i < pathArgNames.size(); i++) {
+                int index = indexOf(names, count, pathArgNames.get(i));
+                if (index < 0) {
+                    index = add(names, paths, count++, pathArgNames.get(i));
+                    paths[index] = i;
+                }
+            }
+            if (hostArgName != null) {
+                int index = indexOf(names, count, hostArgName);
+                if (index < 0) {
+                    index = add(names, paths, count++, hostArgName);
+                }
+                hosts[index] = true;
+            }
+            for (Map.Entry<String, String> staticArg : staticArgs.entrySet()) {
+                int index = indexOf(names, count, staticArg.getKey());
+                if (index < 0) {
+                    index = add(names, paths, count++, staticArg.getKey());
+                }
+                statics[index] = staticArg.getValue();
+            }
+            this.keys = new String[count];
+            this.pathIndexes = new int[count];
+            this.hostKeys = new boolean[count];
+            this.staticValues = new String[count];
+            System.arraycopy(names, 0, keys, 0, count);
+            System.arraycopy(paths, 0, pathIndexes, 0, count);
+            System.arraycopy(hosts, 0, hostKeys, 0, count);
+            System.arraycopy(statics, 0, staticValues, 0, count);
+        }
+
+        int indexOf(Object key) {
+            return indexOf(keys, keys.length, key);
+        }
+
+        private static int indexOf(String[] names, int count, Object key) {
+            for (int i = 0; i < count; i++) {
+                if (names[i].equals(key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private static int add(String[] names, int[] paths, int index, String name) {
+            names[index] = name;
+            paths[index] = -1;
+            return index;
+        }
+    }
+}
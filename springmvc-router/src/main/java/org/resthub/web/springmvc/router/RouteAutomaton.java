@@ -0,0 +1,782 @@
+package org.resthub.web.springmvc.router;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.resthub.web.springmvc.router.Router.Route;
+import org.resthub.web.springmvc.router.regex.RegexEngine;
+import org.resthub.web.springmvc.router.regex.RegexPattern;
+
+/**
+ * Single automaton compiled from the path patterns of a list of routes.
+ *
+ * <p>Every route pattern is parsed into a Thompson NFA, and all of them are
+ * combined into a single program. Matching a path runs a DFA, lazily built
+ * from that program and cached across requests, over the path characters:
+ * the final DFA state gives every route whose pattern fully matches the
+ * path, in declaration order. Once the cached states exceed
+ * {@link #MAX_DFA_MEMORY}, the cache is flushed and states are built again
+ * as paths need them, as RE2 does. The <code>{param}</code> groups of a selected
+ * route are then captured by running a tagged NFA (Pike VM) over that route
+ * program only, with the same priorities as a backtracking regex engine.
+ *
+ * <p>Patterns using constructs the automaton can't express (anchors,
+ * back-references, lookarounds, possessive quantifiers...) are not
+ * compiled: those routes are listed by {@link #fallbacks()} and must still
+ * be matched with their own pattern.
+ *
+ * @see RouteLookupStrategy#AUTOMATON
+ */
+final class RouteAutomaton {
+
+    /**
+     * Memory budget, in bytes, of the DFA states cached by an automaton
+     * (one per route bucket using the automaton lookup strategy).
+     */
+    static final long MAX_DFA_MEMORY = 2L << 20;
+    /**
+     * Estimated size of a cached DFA state besides its instructions: the
+     * state with its table of 128 ASCII transitions, its map of other
+     * transitions, its key and its cache entry.
+     */
+    private static final int DFA_STATE_SIZE = 800;
+
+    private static final int MAX_ROUTE_PROGRAM = 5000;
+
+    private static final int CHAR = 0;
+    private static final int CLASS = 1;
+    private static final int SPLIT = 2;
+    private static final int JMP = 3;
+    private static final int SAVE = 4;
+    private static final int MATCH = 5;
+
+    private static final int[] NONE = new int[0];
+
+    private int[] op = new int[64];
+    private int[] x = new int[64];
+    private int[] y = new int[64];
+    private int size;
+    private int routeStart;
+    private final List<CharClass> classes = new ArrayList<CharClass>();
+
+    private final int[] starts;
+    private final int[] ends;
+    private final int[] slots;
+    private final int[] fallbacks;
+
+    private final int[] startPcs;
+    /**
+     * The cached DFA states, replaced as a whole when flushed; states of a
+     * flushed cache may still be used by the paths being matched.
+     */
+    private volatile ConcurrentMap<StateKey, State> states = new ConcurrentHashMap<StateKey, State>();
+    private final AtomicLong statesMemory = new AtomicLong();
+    private volatile State start;
+
+    RouteAutomaton(List<Route> routes, RegexEngine engine) {
+        this.starts = new int[routes.size()];
+        this.ends = new int[routes.size()];
+        this.slots = new int[routes.size()];
+        Map<String, CharClass> sharedClasses = new HashMap<String, CharClass>();
+        List<Integer> notCompiled = new ArrayList<Integer>();
+        int[] startPcs = new int[routes.size()];
+        int compiled = 0;
+        for (int i = 0; i < routes.size(); i++) {
+            int classMark = classes.size();
+            routeStart = size;
+            try {
+                Route route = routes.get(i);
+                Parser parser = new Parser(route.pattern.toString(), pathArgNames(route), sharedClasses, engine);
+                Node node = parser.parse();
+                starts[i] = size;
+                emit(node);
+                emit(MATCH, i, 0);
+                ends[i] = size;
+                slots[i] = parser.groups.size();
+                startPcs[compiled++] = starts[i];
+            } catch (Unsupported e) {
+                size = routeStart;
+                while (classes.size() > classMark) {
+                    classes.remove(classes.size() - 1);
+                }
+                starts[i] = -1;
+                notCompiled.add(i);
+            }
+        }
+        this.fallbacks = new int[notCompiled.size()];
+        for (int i = 0; i < fallbacks.length; i++) {
+            fallbacks[i] = notCompiled.get(i);
+        }
+        this.startPcs = closure(Arrays.copyOf(startPcs, compiled));
+        this.start = state(this.startPcs);
+    }
+
+    /**
+     * Positions (in the list this automaton was built from) of the routes
+     * this automaton can't match, in ascending order.
+     */
+    int[] fallbacks() {
+        return fallbacks;
+    }
+
+    /**
+     * Returns the positions of the compiled routes fully matching the given
+     * path, in ascending order.
+     */
+    int[] match(String path) {
+        State state = start;
+        for (int i = 0; i < path.length() && state.pcs.length > 0; i++) {
+            state = state.next(path.charAt(i));
+        }
+        return state.matches;
+    }
+
+    /**
+     * Capture the path arguments of a compiled route known to match the
+     * given path.
+     *
+     * @return start and end offsets of each path argument, in declaration
+     * order (-1 if the argument didn't participate in the match), or null if
+     * the route doesn't match the path
+     */
+    int[] captures(int route, String path) {
+        int[] visited = new int[ends[route] - starts[route]];
+        int generation = 0;
+        Threads current = new Threads();
+        Threads next = new Threads();
+        int[] empty = new int[slots[route] * 2];
+        Arrays.fill(empty, -1);
+        addThread(current, starts[route], empty, 0, visited, ++generation, starts[route]);
+        for (int i = 0; i < path.length() && current.size > 0; i++) {
+            char c = path.charAt(i);
+            generation++;
+            for (int t = 0; t < current.size; t++) {
+                int pc = current.pcs[t];
+                if (consumes(pc, c)) {
+                    addThread(next, pc + 1, current.captures[t], i + 1, visited, generation, starts[route]);
+                }
+            }
+            Threads swap = current;
+            current = next;
+            next = swap;
+            next.size = 0;
+        }
+        for (int t = 0; t < current.size; t++) {
+            if (op[current.pcs[t]] == MATCH) {
+                return current.captures[t];
+            }
+        }
+        return null;
+    }
+
+    private void addThread(Threads threads, int pc, int[] captures, int position, int[] visited, int generation, int offset) {
+        if (visited[pc - offset] == generation) {
+            return;
+        }
+        visited[pc - offset] = generation;
+        switch (op[pc]) {
+            case JMP:
+                addThread(threads, x[pc], captures, position, visited, generation, offset);
+                break;
+            case SPLIT:
+                addThread(threads, x[pc], captures, position, visited, generation, offset);
+                addThread(threads, y[pc], captures, position, visited, generation, offset);
+                break;
+            case SAVE:
+                int[] saved = captures.clone();
+                saved[x[pc]] = position;
+                addThread(threads, pc + 1, saved, position, visited, generation, offset);
+                break;
+            default:
+                threads.add(pc, captures);
+        }
+    }
+
+    private boolean consumes(int pc, char c) {
+        switch (op[pc]) {
+            case CHAR:
+                return x[pc] == c;
+            case CLASS:
+                return classes.get(x[pc]).accepts(c);
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Returns the sorted consuming instructions (and match instructions)
+     * reachable from the given instructions without consuming input.
+     */
+    private int[] closure(int[] pcs) {
+        boolean[] seen = new boolean[size];
+        int[] stack = new int[size + 1];
+        int depth = 0;
+        for (int pc : pcs) {
+            stack[depth++] = pc;
+        }
+        int count = 0;
+        int[] result = new int[8];
+        while (depth > 0) {
+            int pc = stack[--depth];
+            if (seen[pc]) {
+                continue;
+            }
+            seen[pc] = true;
+            switch (op[pc]) {
+                case JMP:
+                    stack[depth++] = x[pc];
+                    break;
+                case SPLIT:
+                    stack[depth++] = x[pc];
+                    stack[depth++] = y[pc];
+                    break;
+                case SAVE:
+                    stack[depth++] = pc + 1;
+                    break;
+                default:
+                    if (count == result.length) {
+                        result = Arrays.copyOf(result, count * 2);
+                    }
+                    result[count++] = pc;
+            }
+        }
+        result = Arrays.copyOf(result, count);
+        Arrays.sort(result);
+        return result;
+    }
+
+    private State state(int[] pcs) {
+        StateKey key = new StateKey(pcs);
+        ConcurrentMap<StateKey, State> cached = states;
+        State state = cached.get(key);
+        if (state == null) {
+            state = new State(pcs);
+            long size = DFA_STATE_SIZE + 4L * pcs.length;
+            if (statesMemory.addAndGet(size) > MAX_DFA_MEMORY && !cached.isEmpty()) {
+                flush(cached);
+                cached = states;
+                statesMemory.addAndGet(size);
+            }
+            State previous = cached.putIfAbsent(key, state);
+            if (previous != null) {
+                state = previous;
+            }
+        }
+        return state;
+    }
+
+    /**
+     * Drop the given cached states, unless another thread already did, and
+     * start a new cache from the start state.
+     */
+    private synchronized void flush(ConcurrentMap<StateKey, State> full) {
+        if (states != full) {
+            return;
+        }
+        states = new ConcurrentHashMap<StateKey, State>();
+        statesMemory.set(0);
+        start = state(startPcs);
+    }
+
+    private static List<String> pathArgNames(Route route) {
+        List<String> names = new ArrayList<String>();
+        for (Route.Arg arg : route.args) {
+            if (arg.defaultValue == null) {
+                if (names.contains(arg.name)) {
+                    throw new Unsupported();
+                }
+                names.add(arg.name);
+            }
+        }
+        return names;
+    }
+
+    private void emit(Node node) {
+        switch (node.type) {
+            case Node.CHAR:
+                emit(CHAR, node.c, 0);
+                break;
+            case Node.CLASS:
+                classes.add(node.charClass);
+                emit(CLASS, classes.size() - 1, 0);
+                break;
+            case Node.CONCAT:
+                for (Node child : node.children) {
+                    emit(child);
+                }
+                break;
+            case Node.ALT: {
+                List<Integer> jumps = new ArrayList<Integer>();
+                for (int i = 0; i < node.children.size(); i++) {
+                    if (i < node.children.size() - 1) {
+                        int split = emit(SPLIT, size + 1, 0);
+                        emit(node.children.get(i));
+                        jumps.add(emit(JMP, 0, 0));
+                        y[split] = size;
+                    } else {
+                        emit(node.children.get(i));
+                    }
+                }
+                for (int jump : jumps) {
+                    x[jump] = size;
+                }
+                break;
+            }
+            case Node.GROUP:
+                if (node.slot >= 0) {
+                    emit(SAVE, 2 * node.slot, 0);
+                    emit(node.children.get(0));
+                    emit(SAVE, 2 * node.slot + 1, 0);
+                } else {
+                    emit(node.children.get(0));
+                }
+                break;
+            case Node.REPEAT: {
+                Node body = node.children.get(0);
+                for (int i = 0; i < node.min; i++) {
+                    emit(body);
+                }
+                if (node.max < 0) {
+                    int loop = emit(SPLIT, 0, 0);
+                    emit(body);
+                    emit(JMP, loop, 0);
+                    setBranches(loop, loop + 1, size, node.greedy);
+                } else {
+                    List<Integer> splits = new ArrayList<Integer>();
+                    for (int i = node.min; i < node.max; i++) {
+                        splits.add(emit(SPLIT, 0, 0));
+                        emit(body);
+                    }
+                    for (int split : splits) {
+                        setBranches(split, split + 1, size, node.greedy);
+                    }
+                }
+                break;
+            }
+            default:
+                throw new Unsupported();
+        }
+    }
+
+    private void setBranches(int split, int body, int exit, boolean greedy) {
+        x[split] = greedy ? body : exit;
+        y[split] = greedy ? exit : body;
+    }
+
+    private int emit(int opcode, int a, int b) {
+        if (size - routeStart > MAX_ROUTE_PROGRAM) {
+            throw new Unsupported();
+        }
+        if (size == op.length) {
+            op = Arrays.copyOf(op, size * 2);
+            x = Arrays.copyOf(x, size * 2);
+            y = Arrays.copyOf(y, size * 2);
+        }
+        op[size] = opcode;
+        x[size] = a;
+        y[size] = b;
+        return size++;
+    }
+
+    /**
+     * A DFA state: the set of NFA instructions threads may be waiting on.
+     */
+    private final class State {
+
+        final int[] pcs;
+        final int[] matches;
+        final State[] ascii = new State[128];
+        final ConcurrentMap<Character, State> others = new ConcurrentHashMap<Character, State>(4);
+
+        State(int[] pcs) {
+            this.pcs = pcs;
+            int count = 0;
+            int[] found = new int[pcs.length];
+            for (int pc : pcs) {
+                if (op[pc] == MATCH) {
+                    found[count++] = x[pc];
+                }
+            }
+            this.matches = (count == 0) ? NONE : Arrays.copyOf(found, count);
+        }
+
+        State next(char c) {
+            State next = (c < 128) ? ascii[c] : others.get(c);
+            if (next != null) {
+                return next;
+            }
+            int[] targets = new int[pcs.length];
+            int count = 0;
+            for (int pc : pcs) {
+                if (consumes(pc, c)) {
+                    targets[count++] = pc + 1;
+                }
+            }
+            next = state(closure(Arrays.copyOf(targets, count)));
+            // states are immutable once built, so a racy publication is fine
+            if (c < 128) {
+                ascii[c] = next;
+            } else {
+                others.put(c, next);
+            }
+            return next;
+        }
+    }
+
+    private static final class StateKey {
+
+        final int[] pcs;
+        final int hash;
+
+        StateKey(int[] pcs) {
+            this.pcs = pcs;
+            this.hash = Arrays.hashCode(pcs);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof StateKey && Arrays.equals(pcs, ((StateKey) other).pcs);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Threads of the tagged NFA, in priority order.
+     */
+    private static final class Threads {
+
+        int[] pcs = new int[16];
+        int[][] captures = new int[16][];
+        int size;
+
+        void add(int pc, int[] saved) {
+            if (size == pcs.length) {
+                pcs = Arrays.copyOf(pcs, size * 2);
+                captures = Arrays.copyOf(captures, size * 2);
+            }
+            pcs[size] = pc;
+            captures[size++] = saved;
+        }
+    }
+
+    /**
+     * A character class, evaluated with the route pattern engine so that it
+     * accepts exactly the same characters as in the route pattern.
+     */
+    private static final class CharClass {
+
+        private final RegexPattern pattern;
+        private final boolean[] ascii = new boolean[128];
+        private final ConcurrentMap<Character, Boolean> others = new ConcurrentHashMap<Character, Boolean>();
+
+        CharClass(String source, RegexEngine engine) {
+            this.pattern = engine.compile(source, false);
+            for (char c = 0; c < 128; c++) {
+                ascii[c] = pattern.matches(String.valueOf(c));
+            }
+        }
+
+        boolean accepts(char c) {
+            if (c < 128) {
+                return ascii[c];
+            }
+            Boolean accepted = others.get(c);
+            if (accepted == null) {
+                accepted = pattern.matches(String.valueOf(c));
+                others.put(c, accepted);
+            }
+            return accepted;
+        }
+    }
+
+    private static final class Unsupported extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    private static final class Node {
+
+        static final int CHAR = 0;
+        static final int CLASS = 1;
+        static final int CONCAT = 2;
+        static final int ALT = 3;
+        static final int GROUP = 4;
+        static final int REPEAT = 5;
+
+        final int type;
+        final List<Node> children = new ArrayList<Node>(2);
+        char c;
+        CharClass charClass;
+        int slot = -1;
+        int min;
+        int max;
+        boolean greedy = true;
+
+        Node(int type) {
+            this.type = type;
+        }
+    }
+
+    /**
+     * Recursive descent parser for the subset of the jregex syntax the
+     * automaton supports.
+     */
+    private static final class Parser {
+
+        private static final int MAX_REPEAT = 100;
+
+        private final String source;
+        private final List<String> argNames;
+        private final Map<String, CharClass> sharedClasses;
+        private final RegexEngine engine;
+        final List<String> groups = new ArrayList<String>();
+        private int position;
+
+        Parser(String source, List<String> argNames, Map<String, CharClass> sharedClasses, RegexEngine engine) {
+            this.source = source;
+            this.argNames = argNames;
+            this.sharedClasses = sharedClasses;
+            this.engine = engine;
+            this.groups.addAll(argNames);
+        }
+
+        Node parse() {
+            Node node = alternation();
+            if (position != source.length()) {
+                throw new Unsupported();
+            }
+            return node;
+        }
+
+        private Node alternation() {
+            Node first = concatenation();
+            if (!peek('|')) {
+                return first;
+            }
+            Node alt = new Node(Node.ALT);
+            alt.children.add(first);
+            while (peek('|')) {
+                position++;
+                alt.children.add(concatenation());
+            }
+            return alt;
+        }
+
+        private Node concatenation() {
+            Node concat = new Node(Node.CONCAT);
+            while (position < source.length() && !peek('|') && !peek(')')) {
+                concat.children.add(repetition());
+            }
+            return concat;
+        }
+
+        private Node repetition() {
+            Node atom = atom();
+            if (position == source.length()) {
+                return atom;
+            }
+            char c = source.charAt(position);
+            int min;
+            int max;
+            if (c == '*') {
+                min = 0;
+                max = -1;
+                position++;
+            } else if (c == '+') {
+                min = 1;
+                max = -1;
+                position++;
+            } else if (c == '?') {
+                min = 0;
+                max = 1;
+                position++;
+            } else if (c == '{' && position + 1 < source.length() && Character.isDigit(source.charAt(position + 1))) {
+                int close = source.indexOf('}', position);
+                if (close < 0) {
+                    throw new Unsupported();
+                }
+                String[] bounds = source.substring(position + 1, close).split(",", -1);
+                try {
+                    min = Integer.parseInt(bounds[0].trim());
+                    if (bounds.length == 1) {
+                        max = min;
+                    } else if (bounds.length == 2) {
+                        max = bounds[1].trim().length() == 0 ? -1 : Integer.parseInt(bounds[1].trim());
+                    } else {
+                        throw new Unsupported();
+                    }
+                } catch (NumberFormatException e) {
+                    throw new Unsupported();
+                }
+                if (min > MAX_REPEAT || max > MAX_REPEAT || (max >= 0 && max < min)) {
+                    throw new Unsupported();
+                }
+                position = close + 1;
+            } else {
+                return atom;
+            }
+            Node repeat = new Node(Node.REPEAT);
+            repeat.children.add(atom);
+            repeat.min = min;
+            repeat.max = max;
+            if (peek('?')) {
+                repeat.greedy = false;
+                position++;
+            }
+            if (position < source.length() && "*+?{".indexOf(source.charAt(position)) > -1) {
+                // possessive or stacked quantifiers
+                throw new Unsupported();
+            }
+            return repeat;
+        }
+
+        private Node atom() {
+            char c = source.charAt(position);
+            switch (c) {
+                case '(':
+                    return group();
+                case '[':
+                    return characterClass();
+                case '.':
+                    position++;
+                    return classNode(".");
+                case '\\':
+                    return escape();
+                case '^':
+                case '$':
+                case ')':
+                case '*':
+                case '+':
+                case '?':
+                case '{':
+                    throw new Unsupported();
+                default:
+                    position++;
+                    Node node = new Node(Node.CHAR);
+                    node.c = c;
+                    return node;
+            }
+        }
+
+        private Node group() {
+            position++;
+            Node group = new Node(Node.GROUP);
+            if (peek('?')) {
+                if (position + 1 < source.length() && source.charAt(position + 1) == ':') {
+                    position += 2;
+                } else {
+                    // lookarounds, flags, atomic groups...
+                    throw new Unsupported();
+                }
+            } else if (peek('{')) {
+                int close = source.indexOf('}', position);
+                if (close < 0) {
+                    throw new Unsupported();
+                }
+                String name = source.substring(position + 1, close);
+                group.slot = argNames.indexOf(name);
+                if (group.slot < 0) {
+                    // a named group that isn't a route argument
+                    groups.add(name);
+                    group.slot = groups.size() - 1;
+                }
+                position = close + 1;
+            }
+            group.children.add(alternation());
+            if (!peek(')')) {
+                throw new Unsupported();
+            }
+            position++;
+            return group;
+        }
+
+        private Node characterClass() {
+            int start = position;
+            position++;
+            if (peek('^')) {
+                position++;
+            }
+            if (peek(']')) {
+                position++;
+            }
+            while (position < source.length() && source.charAt(position) != ']') {
+                char c = source.charAt(position);
+                if (c == '[' || (c == '&' && position + 1 < source.length() && source.charAt(position + 1) == '&')) {
+                    // nested classes, unions and intersections
+                    throw new Unsupported();
+                }
+                if (c == '\\') {
+                    checkSimpleEscape(position + 1);
+                    position++;
+                }
+                position++;
+            }
+            if (position >= source.length()) {
+                throw new Unsupported();
+            }
+            position++;
+            return classNode(source.substring(start, position));
+        }
+
+        private Node escape() {
+            checkSimpleEscape(position + 1);
+            String escape = source.substring(position, position + 2);
+            char c = escape.charAt(1);
+            position += 2;
+            if (Character.isLetterOrDigit(c)) {
+                return classNode(escape);
+            }
+            Node node = new Node(Node.CHAR);
+            node.c = c;
+            return node;
+        }
+
+        /**
+         * Only single character escapes are supported: no anchors,
+         * back-references, unicode properties or code point escapes.
+         */
+        private void checkSimpleEscape(int index) {
+            if (index >= source.length()) {
+                throw new Unsupported();
+            }
+            char c = source.charAt(index);
+            if (Character.isLetterOrDigit(c) && "dDwWsStnrfae".indexOf(c) < 0) {
+                throw new Unsupported();
+            }
+        }
+
+        private Node classNode(String classSource) {
+            CharClass charClass = sharedClasses.get(classSource);
+            if (charClass == null) {
+                try {
+                    charClass = new CharClass(classSource, engine);
+                } catch (RuntimeException e) {
+                    throw new Unsupported();
+                }
+                sharedClasses.put(classSource, charClass);
+            }
+            Node node = new Node(Node.CLASS);
+            node.charClass = charClass;
+            return node;
+        }
+
+        private boolean peek(char c) {
+            return position < source.length() && source.charAt(position) == c;
+        }
+    }
+}
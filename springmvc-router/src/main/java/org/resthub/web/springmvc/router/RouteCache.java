@@ -0,0 +1,323 @@
+package org.resthub.web.springmvc.router;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.resthub.web.springmvc.router.Router.Route;
+import org.resthub.web.springmvc.router.regex.RegexEngine;
+
+/**
+ * Bounded cache of the routes matched by requests, keyed by request method,
+ * path, format and host.
+ *
+ * <p>Requests matching no route are kept apart, with their own bound, so
+ * that a flow of unmatched requests can't evict the cached resolutions.
+ *
+ * <p>Entries are spread over independently locked segments, each evicting
+ * its least recently used entries once it holds more than its share of the
+ * maximum number of entries or of the memory bound. Memory usage is an
+ * estimate based on the length of the cached strings.
+ *
+ * <p>A cache belongs to a single {@link RouteIndex}, so that cached
+ * resolutions are dropped along with the index when routes change; the
+ * resolutions still valid with the new routes may be copied to the cache of
+ * the new index.
+ */
+final class RouteCache {
+
+    /**
+     * Returned by {@link #get} for requests known to match no route.
+     */
+    static final RouteIndex.Match MISS = new RouteIndex.Match(null, null, -1);
+
+    /**
+     * Rough size of an entry without its strings: map entry, key, match and
+     * arguments map.
+     */
+    private static final int ENTRY_OVERHEAD = 200;
+    private static final int STRING_OVERHEAD = 40;
+    private static final int ARG_OVERHEAD = 40;
+
+    private final Segment[] matches;
+    private final Segment[] misses;
+    private final RouteCacheStatistics statistics;
+
+    /**
+     * @param maxEntries maximum number of cached resolutions
+     * @param maxMemory  estimated maximum memory used by the cached
+     *                   resolutions, and by the cached misses, in bytes, or 0
+     *                   for no memory bound
+     * @param maxMisses  maximum number of cached requests matching no route
+     */
+    RouteCache(int maxEntries, long maxMemory, int maxMisses, RouteCacheStatistics statistics) {
+        this.matches = segments(maxEntries, maxMemory);
+        this.misses = segments(maxMisses, maxMemory);
+        this.statistics = statistics;
+    }
+
+    private static Segment[] segments(int maxEntries, long maxMemory) {
+        if (maxEntries <= 0) {
+            return null;
+        }
+        int count = (maxEntries >= 256) ? 16 : 1;
+        Segment[] segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment((maxEntries + count - 1) / count,
+                    (maxMemory <= 0) ? Long.MAX_VALUE : Math.max(1, maxMemory / count));
+        }
+        return segments;
+    }
+
+    /**
+     * Returns the cached resolution of the given request, {@link #MISS} if
+     * the request is known to match no route, or null if the request hasn't
+     * been resolved yet (or has been evicted).
+     */
+    RouteIndex.Match get(String method, String path, String accept, String domain) {
+        Key key = new Key(method, path, accept, domain);
+        RouteIndex.Match match = null;
+        if (matches != null) {
+            match = segmentFor(matches, key).get(key);
+        }
+        if (match == null && misses != null && segmentFor(misses, key).get(key) != null) {
+            match = MISS;
+        }
+        if (match == null) {
+            statistics.miss();
+        } else {
+            statistics.hit();
+        }
+        return match;
+    }
+
+    /**
+     * Cache the resolution of the given request.
+     */
+    void put(String method, String path, String accept, String domain, RouteIndex.Match match) {
+        if (matches != null) {
+            Key key = new Key(method, path, accept, domain);
+            store(matches, key, match, size(key, match.args));
+        }
+    }
+
+    /**
+     * Remember that the given request matches no route.
+     */
+    void putMiss(String method, String path, String accept, String domain) {
+        if (misses != null) {
+            Key key = new Key(method, path, accept, domain);
+            store(misses, key, MISS, size(key, null));
+        }
+    }
+
+    private void store(Segment[] segments, Key key, RouteIndex.Match match, long size) {
+        int evicted = segmentFor(segments, key).put(key, match, size);
+        if (evicted > 0) {
+            statistics.evicted(evicted);
+        }
+    }
+
+    /**
+     * Copy the resolutions of a cache of previous routes that are still
+     * valid with the given routes, least recently used first: those of
+     * requests matching no added route, and matching a route that was kept
+     * or no route at all. Nothing is copied if kept routes were reordered.
+     *
+     * @param positions the positions of the given routes in the new index
+     */
+    void copyValid(RouteCache previous, List<Route> previousRoutes, List<Route> routes, int[] positions,
+                   RegexEngine engine) {
+        Map<Route, Integer> previousPositions = new IdentityHashMap<Route, Integer>(previousRoutes.size());
+        for (int i = 0; i < previousRoutes.size(); i++) {
+            previousPositions.put(previousRoutes.get(i), i);
+        }
+        Map<Route, Integer> kept = new IdentityHashMap<Route, Integer>(routes.size());
+        List<Route> added = new ArrayList<Route>();
+        int lastKept = -1;
+        for (int i = 0; i < routes.size(); i++) {
+            Route route = routes.get(i);
+            Integer previousPosition = previousPositions.get(route);
+            if (previousPosition == null) {
+                added.add(route);
+            } else if (previousPosition < lastKept) {
+                return;
+            } else {
+                lastKept = previousPosition;
+                kept.put(route, positions[i]);
+            }
+        }
+        copyValid(previous, kept, null, added, engine);
+    }
+
+    /**
+     * Copy the resolutions of a cache of previous routes that are still
+     * valid once the given routes are removed and added, the positions of
+     * the other routes being unchanged.
+     *
+     * @param removed the removed routes, compared by identity
+     */
+    void copyValid(RouteCache previous, Set<Route> removed, List<Route> added, RegexEngine engine) {
+        copyValid(previous, null, removed, added, engine);
+    }
+
+    /**
+     * @param positions the new positions of the kept routes, or null if
+     *                  the routes not removed keep their position
+     */
+    private void copyValid(RouteCache previous, Map<Route, Integer> positions, Set<Route> removed, List<Route> added,
+                           RegexEngine engine) {
+        RouteIndex addedRoutes = added.isEmpty() ? null
+                : new RouteIndex(added, RouteLookupStrategy.SCAN, engine, null, null);
+        copyValid(previous.matches, matches, positions, removed, addedRoutes);
+        copyValid(previous.misses, misses, positions, removed, addedRoutes);
+    }
+
+    private static void copyValid(Segment[] from, Segment[] to, Map<Route, Integer> positions, Set<Route> removed,
+                                  RouteIndex addedRoutes) {
+        if (from == null || to == null) {
+            return;
+        }
+        for (Segment segment : from) {
+            for (Map.Entry<Key, Entry> cached : segment.entries()) {
+                Key key = cached.getKey();
+                RouteIndex.Match match = cached.getValue().match;
+                if (match != MISS && positions != null) {
+                    Integer position = positions.get(match.route);
+                    if (position == null) {
+                        continue;
+                    }
+                    match = new RouteIndex.Match(match.route, match.args, position);
+                } else if (match != MISS && removed.contains(match.route)) {
+                    continue;
+                }
+                if (addedRoutes != null && addedRoutes.find(key.method, key.path, key.accept, key.domain) != null) {
+                    continue;
+                }
+                segmentFor(to, key).put(key, match, cached.getValue().size);
+            }
+        }
+    }
+
+    private static Segment segmentFor(Segment[] segments, Key key) {
+        int hash = key.hash;
+        hash ^= (hash >>> 16);
+        return segments[(hash & 0x7fffffff) % segments.length];
+    }
+
+    private static long size(Key key, Map<String, String> args) {
+        long size = ENTRY_OVERHEAD + size(key.method) + size(key.path) + size(key.accept) + size(key.domain);
+        if (args != null) {
+            for (Map.Entry<String, String> arg : args.entrySet()) {
+                size += ARG_OVERHEAD + size(arg.getKey()) + size(arg.getValue());
+            }
+        }
+        return size;
+    }
+
+    private static long size(String value) {
+        return (value == null) ? 0 : STRING_OVERHEAD + 2L * value.length();
+    }
+
+    private static final class Segment {
+
+        private final int maxEntries;
+        private final long maxMemory;
+        private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true);
+        private long memory;
+
+        Segment(int maxEntries, long maxMemory) {
+            this.maxEntries = maxEntries;
+            this.maxMemory = maxMemory;
+        }
+
+        /**
+         * Returns a copy of the entries, least recently used first.
+         */
+        synchronized List<Map.Entry<Key, Entry>> entries() {
+            return new ArrayList<Map.Entry<Key, Entry>>(entries.entrySet());
+        }
+
+        synchronized RouteIndex.Match get(Key key) {
+            Entry entry = entries.get(key);
+            return (entry == null) ? null : entry.match;
+        }
+
+        /**
+         * @return the number of evicted entries
+         */
+        synchronized int put(Key key, RouteIndex.Match match, long size) {
+            Entry previous = entries.put(key, new Entry(match, size));
+            if (previous != null) {
+                memory -= previous.size;
+            }
+            memory += size;
+            int evicted = 0;
+            Iterator<Entry> eldest = entries.values().iterator();
+            while ((entries.size() > maxEntries || memory > maxMemory) && eldest.hasNext()) {
+                memory -= eldest.next().size;
+                eldest.remove();
+                evicted++;
+            }
+            return evicted;
+        }
+    }
+
+    private static final class Entry {
+
+        final RouteIndex.Match match;
+        final long size;
+
+        Entry(RouteIndex.Match match, long size) {
+            this.match = match;
+            this.size = size;
+        }
+    }
+
+    private static final class Key {
+
+        final String method;
+        final String path;
+        final String accept;
+        final String domain;
+        final int hash;
+
+        Key(String method, String path, String accept, String domain) {
+            this.method = method;
+            this.path = path;
+            this.accept = accept;
+            this.domain = domain;
+            int h = hashCode(method);
+            h = 31 * h + hashCode(path);
+            h = 31 * h + hashCode(accept);
+            this.hash = 31 * h + hashCode(domain);
+        }
+
+        private static int hashCode(String value) {
+            return (value == null) ? 0 : value.hashCode();
+        }
+
+        private static boolean equal(String a, String b) {
+            return (a == null) ? b == null : a.equals(b);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return hash == key.hash && equal(path, key.path) && equal(method, key.method)
+                    && equal(accept, key.accept) && equal(domain, key.domain);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package org.resthub.web.springmvc.router;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of the route resolution cache, accumulated since the cache was
+ * last configured.
+ *
+ * @see RouterHandlerMapping#setCacheMaxEntries(int)
+ */
+public final class RouteCacheStatistics {
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Number of requests resolved from the cache.
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Number of requests resolved by looking up the routes.
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Number of resolutions dropped to keep the cache within its bounds.
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    void hit() {
+        hits.incrementAndGet();
+    }
+
+    void miss() {
+        misses.incrementAndGet();
+    }
+
+    void evicted(int count) {
+        evictions.addAndGet(count);
+    }
+
+    @Override
+    public String toString() {
+        return "hits=" + getHits() + ", misses=" + getMisses() + ", evictions=" + getEvictions();
+    }
+}
@@ -0,0 +1,198 @@
+package org.resthub.web.springmvc.router;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.resthub.web.springmvc.router.Router.Route;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads route definitions from a route file, line by line, e.g.
+ * <code>GET(json) /users/{id} userController.show(format:'json')</code>.
+ *
+ * <p>A route definition is made of an HTTP method (or "*"), optionally
+ * followed by route formats between parentheses, a path containing a "/",
+ * an action and optional static params, separated by whitespace. Empty
+ * lines and lines starting with "#" are skipped.
+ *
+ * <p>Invalid route definitions are logged with their line and column, and
+ * skipped. Only the current line is kept in memory.
+ */
+final class RouteFileParser {
+
+    private static final Logger logger = LoggerFactory.getLogger(RouteFileParser.class);
+
+    private static final String[] METHODS = {"GET", "POST", "PUT", "DELETE", "PATCH", "OPTIONS", "HEAD", "*"};
+
+    private final String location;
+    private final List<Route> target;
+    private final List<String> errors = new ArrayList<String>();
+    private final StringBuilder line = new StringBuilder(128);
+    private int lineNumber;
+    private int pos;
+    private int end;
+
+    private RouteFileParser(String location, List<Route> target) {
+        this.location = location;
+        this.target = target;
+    }
+
+    /**
+     * Parse route definitions, appending the routes to the given list.
+     *
+     * @param location the route file, as referred to by the routes
+     * @return the errors of the invalid route definitions, which are skipped
+     */
+    static List<String> parse(Reader reader, String location, List<Route> target) throws IOException {
+        RouteFileParser parser = new RouteFileParser(location, target);
+        char[] buffer = new char[8192];
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            int start = 0;
+            for (int i = 0; i < read; i++) {
+                if (buffer[i] == '\n') {
+                    parser.line.append(buffer, start, i - start);
+                    parser.parseLine();
+                    start = i + 1;
+                }
+            }
+            parser.line.append(buffer, start, read - start);
+        }
+        parser.parseLine();
+        return parser.errors;
+    }
+
+    private void parseLine() {
+        lineNumber++;
+        pos = 0;
+        end = line.length();
+        while (end > 0 && isWhitespace(line.charAt(end - 1))) {
+            end--;
+        }
+        try {
+            parseRoute();
+        } catch (SyntaxError e) {
+            String error = location + ":" + lineNumber + ":" + (e.column + 1) + ": " + e.getMessage()
+                    + " in route definition: " + line.substring(0, end).trim();
+            logger.error("Invalid route definition at " + error);
+            errors.add(error);
+        } finally {
+            line.setLength(0);
+        }
+    }
+
+    private void parseRoute() throws SyntaxError {
+        skipWhitespace();
+        if (pos == end || line.charAt(pos) == '#') {
+            return;
+        }
+
+        int start = pos;
+        while (pos < end && !isWhitespace(line.charAt(pos)) && line.charAt(pos) != '(') {
+            pos++;
+        }
+        String method = line.substring(start, pos);
+        if (!isMethod(method)) {
+            throw new SyntaxError(start, "unknown HTTP method '" + method + "'");
+        }
+        String headers = null;
+        if (pos < end && line.charAt(pos) == '(') {
+            int close = line.indexOf(")", pos);
+            if (close < 0 || close >= end) {
+                throw new SyntaxError(pos, "missing ')' after the route formats");
+            }
+            headers = collapseWhitespace(pos + 1, close);
+            pos = close + 1;
+        }
+        if (pos < end && !isWhitespace(line.charAt(pos))) {
+            throw new SyntaxError(pos, "expected whitespace before the route path");
+        }
+        skipWhitespace();
+
+        start = pos;
+        boolean slash = false;
+        while (pos < end && !isWhitespace(line.charAt(pos))) {
+            slash |= line.charAt(pos) == '/';
+            pos++;
+        }
+        if (start == pos) {
+            throw new SyntaxError(pos, "missing route path");
+        }
+        if (!slash) {
+            throw new SyntaxError(start, "route path without '/'");
+        }
+        String path = line.substring(start, pos);
+        skipWhitespace();
+
+        start = pos;
+        while (pos < end && !isWhitespace(line.charAt(pos)) && line.charAt(pos) != '(') {
+            pos++;
+        }
+        if (start == pos) {
+            throw new SyntaxError(pos, "missing route action");
+        }
+        String action = line.substring(start, pos);
+        String params = (pos < end) ? collapseWhitespace(pos, end) : null;
+
+        target.add(Router.getRoute(method, path, action, params, headers, location, lineNumber));
+    }
+
+    private void skipWhitespace() {
+        while (pos < end && isWhitespace(line.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    /**
+     * Returns the given part of the line, with whitespace runs replaced by a
+     * single space.
+     */
+    private String collapseWhitespace(int from, int to) {
+        StringBuilder collapsed = new StringBuilder(to - from);
+        boolean whitespace = false;
+        for (int i = from; i < to; i++) {
+            char c = line.charAt(i);
+            if (isWhitespace(c)) {
+                whitespace = true;
+            } else {
+                if (whitespace) {
+                    collapsed.append(' ');
+                    whitespace = false;
+                }
+                collapsed.append(c);
+            }
+        }
+        if (whitespace) {
+            collapsed.append(' ');
+        }
+        return collapsed.toString();
+    }
+
+    private static boolean isMethod(String method) {
+        for (String known : METHODS) {
+            if (known.equals(method)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c <= ' ';
+    }
+
+    private static final class SyntaxError extends Exception {
+
+        private static final long serialVersionUID = 1L;
+
+        final int column;
+
+        SyntaxError(int column, String message) {
+            super(message);
+            this.column = column;
+        }
+    }
+}
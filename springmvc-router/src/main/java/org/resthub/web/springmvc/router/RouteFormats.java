@@ -0,0 +1,105 @@
+package org.resthub.web.springmvc.router;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.resthub.web.springmvc.router.Router.Route;
+
+/**
+ * Registry of the formats declared by the routes of a {@link RouteIndex},
+ * e.g. <code>GET(json) /path</code>.
+ *
+ * <p>Each distinct format gets a bit, so that the formats of a route are a
+ * bitmask and checking a request format against a route is a single AND.
+ * A registry is never modified: an index built from scratch gets a registry
+ * of its own formats, and an index derived from another one gets the
+ * formats of the previous index plus the new ones, keeping their bits.
+ *
+ * <p>Past {@link #MAX_FORMATS} distinct formats, new formats get no bit and
+ * routes declaring them have to compare format names.
+ */
+final class RouteFormats {
+
+    /**
+     * Mask of a request without format, accepted by every route.
+     */
+    static final long ANY = -1L;
+    static final int MAX_FORMATS = 64;
+    static final RouteFormats NONE = new RouteFormats(new String[0]);
+
+    private final String[] formats;
+
+    private RouteFormats(String[] formats) {
+        this.formats = formats;
+    }
+
+    /**
+     * Returns a registry of the formats of this registry plus the formats
+     * of the given routes, or this registry if it has them all.
+     */
+    RouteFormats with(Route[] routes) {
+        Set<String> added = new LinkedHashSet<String>();
+        for (Route route : routes) {
+            for (String format : route.formats) {
+                if (indexOf(format) < 0) {
+                    added.add(format);
+                }
+            }
+        }
+        if (added.isEmpty() || formats.length == MAX_FORMATS) {
+            return this;
+        }
+        String[] registered = Arrays.copyOf(formats, Math.min(MAX_FORMATS, formats.length + added.size()));
+        int i = formats.length;
+        for (String format : added) {
+            if (i == registered.length) {
+                break;
+            }
+            registered[i++] = format;
+        }
+        return new RouteFormats(registered);
+    }
+
+    /**
+     * Returns the bits of the formats of the given route, or 0 if the route
+     * declares no format or a format without bit.
+     */
+    long mask(Route route) {
+        long bits = 0;
+        for (String format : route.formats) {
+            int i = indexOf(format);
+            if (i < 0) {
+                return 0;
+            }
+            bits |= 1L << i;
+        }
+        return bits;
+    }
+
+    /**
+     * Returns the bits of the route formats starting with the given request
+     * format, or {@link #ANY} if the request has no format.
+     */
+    long mask(String accept) {
+        if (accept == null) {
+            return ANY;
+        }
+        long bits = 0;
+        for (int i = 0; i < formats.length; i++) {
+            if (formats[i].startsWith(accept)) {
+                bits |= 1L << i;
+            }
+        }
+        return bits;
+    }
+
+    private int indexOf(String format) {
+        for (int i = 0; i < formats.length; i++) {
+            if (formats[i].equals(format)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
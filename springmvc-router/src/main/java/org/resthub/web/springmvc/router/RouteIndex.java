@@ -0,0 +1,667 @@
+package org.resthub.web.springmvc.router;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.resthub.web.springmvc.router.Router.Route;
+import org.resthub.web.springmvc.router.regex.RegexEngine;
+
+/**
+ * Lookup structures derived from the route list.
+ *
+ * <p>Routes are partitioned by HTTP method at build time: each partition
+ * holds, in declaration order, the routes answering to that method ("*"
+ * routes are merged in every partition, GET routes in the HEAD one). Requests
+ * using a method the router doesn't know about are matched against all
+ * routes.
+ *
+ * <p>Routes of a method are then split in buckets by host: routes without a
+ * host, routes bound to a domain name ("example.org"), routes bound to the
+ * subdomains of a domain ("{client}.example.org"), and the other host
+ * patterns. Only the buckets matching the request host are searched.
+ *
+ * <p>Within a bucket, static routes (no placeholder, no regex, no host
+ * pattern) are stored in a map keyed by path; the other routes are tried in
+ * declaration order, or through a {@link RouteTrie} or a {@link RouteAutomaton}
+ * depending on the {@link RouteLookupStrategy}. Routes whose method or format
+ * (see {@link RouteFormats}) doesn't fit the request are skipped before any
+ * regex is run. Every route keeps its position in the route list, so that a
+ * static route only wins if no route declared before it matches the request.
+ *
+ * <p>A scan may try routes by hit counts rather than in declaration order
+ * where that can't change the matching route, see {@link RouteOrdering}.
+ *
+ * <p>Resolved requests may be kept in a {@link RouteCache}.
+ *
+ * <p>An index is never modified once built (except for its cache); the
+ * {@link Router} drops it and builds a new one when routes change. A few
+ * routes may be added or removed by {@link #update deriving} a new index,
+ * which only rebuilds the buckets of those routes and shares the others.
+ */
+final class RouteIndex {
+
+    private final HostDispatch[] methods;
+    private final HostDispatch allMethods;
+    private final RouteCache cache;
+    private final Settings settings;
+
+    /**
+     * @param cache    the cache of resolved requests, or null
+     * @param ordering the statistics of the adaptive route ordering, or null
+     *                 to scan routes in declaration order
+     */
+    RouteIndex(List<Route> routes, RouteLookupStrategy strategy, RegexEngine engine, RouteCache cache,
+               RouteOrderingStatistics ordering) {
+        this(routes, indexes(routes.size()), strategy, engine, cache, ordering);
+    }
+
+    /**
+     * @param positions the positions of the routes, in ascending order: any
+     *                  increasing numbers, so that routes may be added
+     *                  between others by {@link #update}
+     */
+    RouteIndex(List<Route> routes, int[] positions, RouteLookupStrategy strategy, RegexEngine engine,
+               RouteCache cache, RouteOrderingStatistics ordering) {
+        Route[] table = routes.toArray(new Route[routes.size()]);
+        this.settings = new Settings(strategy, engine, ordering, RouteFormats.NONE.with(table));
+        this.methods = new HostDispatch[Route.METHODS.length];
+        for (int i = 0; i < Route.METHODS.length; i++) {
+            this.methods[i] = new HostDispatch(table, positions, 1 << i, settings);
+        }
+        this.allMethods = new HostDispatch(table, positions, -1, settings);
+        this.cache = cache;
+    }
+
+    private static int[] indexes(int count) {
+        int[] indexes = new int[count];
+        for (int i = 0; i < count; i++) {
+            indexes[i] = i;
+        }
+        return indexes;
+    }
+
+    private RouteIndex(HostDispatch[] methods, HostDispatch allMethods, RouteCache cache, Settings settings) {
+        this.methods = methods;
+        this.allMethods = allMethods;
+        this.cache = cache;
+        this.settings = settings;
+    }
+
+    /**
+     * Returns an index of the same routes, minus the removed ones, plus the
+     * added ones; only the buckets of these routes are rebuilt.
+     *
+     * @param removed        indexed routes, compared by identity
+     * @param added          routes to add
+     * @param addedPositions the positions of the added routes, in ascending
+     *                       order, between the positions of the routes they
+     *                       are declared between; the positions of the other
+     *                       routes don't change
+     * @param cache          the cache of resolved requests, or null
+     */
+    RouteIndex update(Set<Route> removed, List<Route> added, int[] addedPositions, RouteCache cache) {
+        Route[] table = added.toArray(new Route[added.size()]);
+        Settings settings = this.settings.withFormats(this.settings.formats.with(table));
+        HostDispatch[] updated = new HostDispatch[methods.length];
+        for (int i = 0; i < methods.length; i++) {
+            updated[i] = methods[i].update(removed, table, addedPositions, 1 << i, settings);
+        }
+        return new RouteIndex(updated, allMethods.update(removed, table, addedPositions, -1, settings), cache, settings);
+    }
+
+    /**
+     * Find the first route matching the given request.
+     *
+     * @param method the request method, or null to match routes of every method
+     * @return the matching route and its read-only arguments, or null if no
+     * route matches
+     */
+    Match find(String method, String path, String accept, String domain) {
+        if (cache == null) {
+            return lookup(method, path, accept, domain);
+        }
+        Match match = cache.get(method, path, accept, domain);
+        if (match == RouteCache.MISS) {
+            return null;
+        }
+        if (match == null) {
+            match = lookup(method, path, accept, domain);
+            if (match == null) {
+                cache.putMiss(method, path, accept, domain);
+            } else {
+                cache.put(method, path, accept, domain, match);
+            }
+        }
+        return match;
+    }
+
+    private Match lookup(String method, String path, String accept, String domain) {
+        int methodIndex = Route.methodIndex(method);
+        long acceptMask = settings.formats.mask(accept);
+        if (methodIndex < 0) {
+            return allMethods.find(method, path, accept, acceptMask, domain);
+        }
+        return methods[methodIndex].find(null, path, accept, acceptMask, domain);
+    }
+
+    /**
+     * Collect the methods of the routes matching the given request path,
+     * whatever their method.
+     *
+     * @return a bitmask of {@link Route#METHODS}, 0 if no route matches
+     */
+    int allowedMethods(String path, String accept, String domain) {
+        return allMethods.allowedMethods(path, accept, settings.formats.mask(accept), domain);
+    }
+
+    static boolean isStatic(Route route) {
+        return (route.host.length() == 0 || route.exactHost != null) && RouteTrie.isLiteral(route.path);
+    }
+
+    /**
+     * A route matching a request, along with the arguments extracted from
+     * that request.
+     */
+    static final class Match {
+
+        final Route route;
+        final Map<String, String> args;
+        /**
+         * Position of the route, ordering routes as the route list.
+         */
+        final int position;
+
+        Match(Route route, Map<String, String> args, int position) {
+            this.route = route;
+            this.args = args;
+            this.position = position;
+        }
+    }
+
+    /**
+     * The routes answering to a HTTP method, by host.
+     */
+    private static final class HostDispatch {
+
+        private static final String NO_HOST = "";
+        private static final String OTHER_HOSTS = "*";
+        private static final String EXACT_HOST = "=";
+        private static final String HOST_SUFFIX = ".";
+
+        private final Bucket anyHost;
+        private final Map<String, Bucket> exactHosts;
+        private final Map<String, Bucket> hostSuffixes;
+        /**
+         * Distinct lengths of the {@link #hostSuffixes} keys.
+         */
+        private final int[] suffixLengths;
+        private final Bucket otherHosts;
+        private final Bucket[] all;
+
+        /**
+         * @param positions  the positions of the routes of the table in the
+         *                   route list, in ascending order
+         * @param methodMask the methods bit of the routes to dispatch, or -1
+         *                   to dispatch all routes and check request methods
+         */
+        HostDispatch(Route[] table, int[] positions, int methodMask, Settings settings) {
+            this(null, null, table, positions, methodMask, settings);
+        }
+
+        /**
+         * Dispatch the routes of the previous dispatch, minus the removed
+         * ones, plus the ones of the table; buckets without removed or added
+         * routes are shared with the previous dispatch.
+         *
+         * @param previous the dispatch to update, or null
+         * @param removed  routes to remove from the previous dispatch, or null
+         */
+        private HostDispatch(HostDispatch previous, Set<Route> removed, Route[] table, int[] positions,
+                             int methodMask, Settings settings) {
+            boolean checkMethod = (methodMask == -1);
+            Map<String, List<Integer>> added = new LinkedHashMap<String, List<Integer>>();
+            for (int i = 0; i < table.length; i++) {
+                Route route = table[i];
+                if (checkMethod || (route.methodMask & methodMask) != 0) {
+                    positions(added, bucketKey(route)).add(i);
+                }
+            }
+            Set<String> changed = new LinkedHashSet<String>(added.keySet());
+            if (removed != null) {
+                for (Route route : removed) {
+                    if (checkMethod || (route.methodMask & methodMask) != 0) {
+                        changed.add(bucketKey(route));
+                    }
+                }
+            }
+            Bucket noHost = (previous == null) ? null : previous.anyHost;
+            Bucket other = (previous == null) ? null : previous.otherHosts;
+            this.exactHosts = (previous == null) ? new HashMap<String, Bucket>() : new HashMap<String, Bucket>(previous.exactHosts);
+            this.hostSuffixes = (previous == null) ? new HashMap<String, Bucket>() : new HashMap<String, Bucket>(previous.hostSuffixes);
+            if (previous == null) {
+                changed.add(NO_HOST);
+                changed.add(OTHER_HOSTS);
+            }
+            for (String key : changed) {
+                List<Integer> routes = added.get(key);
+                if (routes == null) {
+                    routes = new ArrayList<Integer>(0);
+                }
+                if (key.equals(NO_HOST)) {
+                    noHost = Bucket.update(noHost, removed, table, positions, routes, checkMethod, settings);
+                } else if (key.equals(OTHER_HOSTS)) {
+                    other = Bucket.update(other, removed, table, positions, routes, checkMethod, settings);
+                } else {
+                    Map<String, Bucket> byHost = key.startsWith(EXACT_HOST) ? exactHosts : hostSuffixes;
+                    String host = key.substring(1);
+                    Bucket bucket = Bucket.update(byHost.get(host), removed, table, positions, routes, checkMethod, settings);
+                    if (bucket.isEmpty()) {
+                        byHost.remove(host);
+                    } else {
+                        byHost.put(host, bucket);
+                    }
+                }
+            }
+            this.anyHost = noHost;
+            this.otherHosts = other;
+
+            List<Bucket> buckets = new ArrayList<Bucket>();
+            buckets.add(anyHost);
+            buckets.addAll(exactHosts.values());
+            TreeSet<Integer> lengths = new TreeSet<Integer>();
+            for (Map.Entry<String, Bucket> entry : hostSuffixes.entrySet()) {
+                lengths.add(entry.getKey().length());
+                buckets.add(entry.getValue());
+            }
+            this.suffixLengths = new int[lengths.size()];
+            int l = 0;
+            for (int length : lengths) {
+                suffixLengths[l++] = length;
+            }
+            buckets.add(otherHosts);
+            this.all = buckets.toArray(new Bucket[buckets.size()]);
+        }
+
+        HostDispatch update(Set<Route> removed, Route[] added, int[] addedPositions, int methodMask, Settings settings) {
+            return new HostDispatch(this, removed, added, addedPositions, methodMask, settings);
+        }
+
+        private static String bucketKey(Route route) {
+            if (route.host.length() == 0) {
+                return NO_HOST;
+            } else if (route.exactHost != null) {
+                return EXACT_HOST + route.exactHost;
+            } else if (route.hostSuffix != null) {
+                return HOST_SUFFIX + route.hostSuffix;
+            }
+            return OTHER_HOSTS;
+        }
+
+        Match find(String method, String path, String accept, long acceptMask, String domain) {
+            Match found = null;
+            if (domain == null) {
+                // routes match requests without a host whatever their own host
+                for (Bucket bucket : all) {
+                    found = bucket.find(method, path, accept, acceptMask, null, found);
+                }
+                return found;
+            }
+            found = anyHost.find(method, path, accept, acceptMask, domain, found);
+            Bucket exact = exactHosts.get(domain);
+            if (exact != null) {
+                found = exact.find(method, path, accept, acceptMask, domain, found);
+            }
+            for (int length : suffixLengths) {
+                if (length > domain.length()) {
+                    break;
+                }
+                Bucket suffix = hostSuffixes.get(domain.substring(domain.length() - length));
+                if (suffix != null) {
+                    found = suffix.find(method, path, accept, acceptMask, domain, found);
+                }
+            }
+            return otherHosts.find(method, path, accept, acceptMask, domain, found);
+        }
+
+        int allowedMethods(String path, String accept, long acceptMask, String domain) {
+            int allowed = 0;
+            if (domain == null) {
+                for (Bucket bucket : all) {
+                    allowed |= bucket.allowedMethods(path, accept, acceptMask, null);
+                }
+                return allowed;
+            }
+            allowed |= anyHost.allowedMethods(path, accept, acceptMask, domain);
+            Bucket exact = exactHosts.get(domain);
+            if (exact != null) {
+                allowed |= exact.allowedMethods(path, accept, acceptMask, domain);
+            }
+            for (int length : suffixLengths) {
+                if (length > domain.length()) {
+                    break;
+                }
+                Bucket suffix = hostSuffixes.get(domain.substring(domain.length() - length));
+                if (suffix != null) {
+                    allowed |= suffix.allowedMethods(path, accept, acceptMask, domain);
+                }
+            }
+            return allowed | otherHosts.allowedMethods(path, accept, acceptMask, domain);
+        }
+
+        private static List<Integer> positions(Map<String, List<Integer>> byBucket, String bucketKey) {
+            List<Integer> positions = byBucket.get(bucketKey);
+            if (positions == null) {
+                positions = new ArrayList<Integer>();
+                byBucket.put(bucketKey, positions);
+            }
+            return positions;
+        }
+    }
+
+    private static final class Bucket {
+
+        /**
+         * The routes of this bucket, in declaration order.
+         */
+        private final Route[] routes;
+        /**
+         * The positions of the routes of this bucket in the route list.
+         */
+        private final int[] positions;
+        /**
+         * The masks of the formats of the routes of this bucket, see
+         * {@link RouteFormats#mask(Route)}.
+         */
+        private final long[] formatMasks;
+        private final boolean checkMethod;
+        /**
+         * Indexes in {@link #routes} of the static routes, by path.
+         */
+        private final Map<String, int[]> staticRoutes = new HashMap<String, int[]>();
+        /**
+         * Indexes in {@link #routes} of the other routes.
+         */
+        private final int[] dynamicRoutes;
+        private final RouteTrie trie;
+        private final RouteAutomaton automaton;
+        private final RouteOrdering ordering;
+
+        /**
+         * @param positions   the positions of the routes in the route list,
+         *                    in ascending order
+         * @param checkMethod whether the routes of this bucket must be checked
+         *                    against request methods
+         */
+        Bucket(Route[] routes, int[] positions, boolean checkMethod, Settings settings) {
+            this.routes = routes;
+            this.positions = positions;
+            this.formatMasks = new long[routes.length];
+            this.checkMethod = checkMethod;
+            List<Route> dynamic = new ArrayList<Route>();
+            int[] indexes = new int[routes.length];
+            for (int i = 0; i < routes.length; i++) {
+                Route route = routes[i];
+                formatMasks[i] = settings.formats.mask(route);
+                if (isStatic(route)) {
+                    int[] previous = staticRoutes.get(route.path);
+                    int[] current = (previous == null) ? new int[1] : Arrays.copyOf(previous, previous.length + 1);
+                    current[current.length - 1] = i;
+                    staticRoutes.put(route.path, current);
+                } else {
+                    indexes[dynamic.size()] = i;
+                    dynamic.add(route);
+                }
+            }
+            this.dynamicRoutes = Arrays.copyOf(indexes, dynamic.size());
+            RouteLookupStrategy strategy = settings.strategy;
+            this.trie = (strategy == RouteLookupStrategy.TRIE) ? new RouteTrie(dynamic, settings.engine) : null;
+            this.automaton = (strategy == RouteLookupStrategy.AUTOMATON) ? new RouteAutomaton(dynamic, settings.engine) : null;
+            RouteOrdering adaptive = (strategy == RouteLookupStrategy.SCAN && settings.ordering != null)
+                    ? new RouteOrdering(dynamic, settings.engine, settings.ordering) : null;
+            this.ordering = (adaptive != null && adaptive.isReorderable()) ? adaptive : null;
+        }
+
+        /**
+         * Returns a bucket of the routes of the previous bucket, minus the
+         * removed ones, plus the given routes of the table.
+         *
+         * @param previous the bucket to update, or null
+         * @param removed  routes to remove from the previous bucket, or null
+         * @param added    indexes in the table of the routes to add
+         */
+        static Bucket update(Bucket previous, Set<Route> removed, Route[] table, int[] tablePositions,
+                             List<Integer> added, boolean checkMethod, Settings settings) {
+            int previousCount = (previous == null) ? 0 : previous.routes.length;
+            List<Route> routes = new ArrayList<Route>(previousCount + added.size());
+            int[] positions = new int[previousCount + added.size()];
+            int p = 0;
+            int a = 0;
+            while (p < previousCount || a < added.size()) {
+                if (a == added.size() || (p < previousCount && previous.positions[p] < tablePositions[added.get(a)])) {
+                    Route route = previous.routes[p];
+                    if (removed == null || !removed.contains(route)) {
+                        positions[routes.size()] = previous.positions[p];
+                        routes.add(route);
+                    }
+                    p++;
+                } else {
+                    int i = added.get(a++);
+                    positions[routes.size()] = tablePositions[i];
+                    routes.add(table[i]);
+                }
+            }
+            return new Bucket(routes.toArray(new Route[routes.size()]), Arrays.copyOf(positions, routes.size()),
+                    checkMethod, settings);
+        }
+
+        boolean isEmpty() {
+            return routes.length == 0;
+        }
+
+        /**
+         * Find the first route of this bucket matching the given request,
+         * if declared before the given match.
+         *
+         * @param acceptMask the mask of the request format, see
+         *                   {@link RouteFormats#mask(String)}
+         * @param best       the best match found so far, or null
+         * @return the first matching route, or the given match
+         */
+        Match find(String method, String path, String accept, long acceptMask, String domain, Match best) {
+            Match found = best;
+            int limit = (best == null) ? Integer.MAX_VALUE : best.position;
+            int[] statics = staticRoutes.get(path);
+            if (statics != null) {
+                for (int index : statics) {
+                    int position = positions[index];
+                    if (position >= limit) {
+                        break;
+                    }
+                    Route route = routes[index];
+                    if ((checkMethod && !route.accepts(method)) || !route.acceptsFormat(accept, acceptMask, formatMasks[index])) {
+                        continue;
+                    }
+                    Map<String, String> args = route.matchesStaticPath();
+                    if (args != null) {
+                        found = new Match(route, args, position);
+                        limit = position;
+                        break;
+                    }
+                }
+            }
+            Match match;
+            if (automaton != null) {
+                match = findWithAutomaton(method, path, accept, acceptMask, domain, limit);
+            } else if (ordering != null) {
+                match = findInAdaptiveOrder(method, path, accept, acceptMask, domain, limit);
+            } else {
+                int[] candidates = (trie == null) ? null : trie.candidates(path);
+                match = findInOrder(candidates, method, path, accept, acceptMask, domain, limit);
+            }
+            return (match == null) ? found : match;
+        }
+
+        /**
+         * Collect the methods of the routes of this bucket matching the
+         * given request path; routes whose methods are already collected are
+         * not tried.
+         */
+        int allowedMethods(String path, String accept, long acceptMask, String domain) {
+            int allowed = 0;
+            int[] statics = staticRoutes.get(path);
+            if (statics != null) {
+                for (int index : statics) {
+                    Route route = routes[index];
+                    if (route.acceptsFormat(accept, acceptMask, formatMasks[index])) {
+                        allowed |= route.methodMask;
+                    }
+                }
+            }
+            int[] candidates = (trie == null) ? null : trie.candidates(path);
+            int count = (candidates == null) ? dynamicRoutes.length : candidates.length;
+            for (int i = 0; i < count; i++) {
+                int index = dynamicRoutes[(candidates == null) ? i : candidates[i]];
+                Route route = routes[index];
+                if ((allowed | route.methodMask) == allowed || !route.acceptsFormat(accept, acceptMask, formatMasks[index])) {
+                    continue;
+                }
+                if (route.matchesPath(path, domain) != null) {
+                    allowed |= route.methodMask;
+                }
+            }
+            return allowed;
+        }
+
+        /**
+         * Try dynamic routes declared before the given position, in order.
+         *
+         * @param candidates indexes of the dynamic routes to try, or null to
+         *                   try all of them
+         */
+        private Match findInOrder(int[] candidates, String method, String path, String accept, long acceptMask, String domain, int limit) {
+            int count = (candidates == null) ? dynamicRoutes.length : candidates.length;
+            for (int i = 0; i < count; i++) {
+                int index = dynamicRoutes[(candidates == null) ? i : candidates[i]];
+                int position = positions[index];
+                if (position >= limit) {
+                    break;
+                }
+                Route route = routes[index];
+                if ((checkMethod && !route.accepts(method)) || !route.acceptsFormat(accept, acceptMask, formatMasks[index])) {
+                    continue;
+                }
+                Map<String, String> args = route.matchesPath(path, domain);
+                if (args != null) {
+                    return new Match(route, args, position);
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Try dynamic routes declared before the given position, run by run
+         * (see {@link RouteOrdering}).
+         */
+        private Match findInAdaptiveOrder(String method, String path, String accept, long acceptMask, String domain, int limit) {
+            int[] order = ordering.order();
+            int tried = 0;
+            int start = 0;
+            for (int end : ordering.runEnds()) {
+                if (positions[dynamicRoutes[start]] >= limit) {
+                    break;
+                }
+                for (int i = start; i < end; i++) {
+                    int candidate = order[i];
+                    int position = positions[dynamicRoutes[candidate]];
+                    if (position >= limit) {
+                        continue;
+                    }
+                    tried++;
+                    int index = dynamicRoutes[candidate];
+                    Route route = routes[index];
+                    if ((checkMethod && !route.accepts(method)) || !route.acceptsFormat(accept, acceptMask, formatMasks[index])) {
+                        continue;
+                    }
+                    Map<String, String> args = route.matchesPath(path, domain);
+                    if (args != null) {
+                        ordering.scanned(candidate, tried);
+                        return new Match(route, args, position);
+                    }
+                }
+                start = end;
+            }
+            ordering.scanned(-1, tried);
+            return null;
+        }
+
+        /**
+         * Merge, in declaration order, the routes matched by the automaton
+         * with the routes it couldn't compile.
+         */
+        private Match findWithAutomaton(String method, String path, String accept, long acceptMask, String domain, int limit) {
+            int[] matched = automaton.match(path);
+            int[] fallbacks = automaton.fallbacks();
+            int m = 0;
+            int f = 0;
+            while (m < matched.length || f < fallbacks.length) {
+                boolean fromAutomaton = f == fallbacks.length
+                        || (m < matched.length && matched[m] < fallbacks[f]);
+                int candidate = fromAutomaton ? matched[m++] : fallbacks[f++];
+                int position = positions[dynamicRoutes[candidate]];
+                if (position >= limit) {
+                    break;
+                }
+                int index = dynamicRoutes[candidate];
+                Route route = routes[index];
+                if ((checkMethod && !route.accepts(method)) || !route.acceptsFormat(accept, acceptMask, formatMasks[index])) {
+                    continue;
+                }
+                Map<String, String> args;
+                if (fromAutomaton) {
+                    int[] bounds = automaton.captures(candidate, path);
+                    args = (bounds == null) ? null : route.matchesGroups(path, bounds, domain);
+                } else {
+                    args = route.matchesPath(path, domain);
+                }
+                if (args != null) {
+                    return new Match(route, args, position);
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * How the buckets of an index are built.
+     */
+    private static final class Settings {
+
+        final RouteLookupStrategy strategy;
+        final RegexEngine engine;
+        /**
+         * The statistics of the adaptive route ordering, or null to scan
+         * routes in declaration order.
+         */
+        final RouteOrderingStatistics ordering;
+        final RouteFormats formats;
+
+        Settings(RouteLookupStrategy strategy, RegexEngine engine, RouteOrderingStatistics ordering,
+                 RouteFormats formats) {
+            this.strategy = strategy;
+            this.engine = engine;
+            this.ordering = ordering;
+            this.formats = formats;
+        }
+
+        Settings withFormats(RouteFormats formats) {
+            return (formats == this.formats) ? this : new Settings(strategy, engine, ordering, formats);
+        }
+    }
+}
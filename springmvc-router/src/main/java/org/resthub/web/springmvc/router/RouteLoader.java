@@ -0,0 +1,365 @@
+package org.resthub.web.springmvc.router;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+
+import org.resthub.web.springmvc.router.Router.Route;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+
+/**
+ * Reads and parses route files, on several threads if configured to; the
+ * routes are returned in declaration order, file by file and line by line.
+ *
+ * <p>When reloading, route files whose timestamp or checksum didn't change
+ * aren't parsed again, and keep their routes. Unchanged routes of the other
+ * files are kept too, so that their compiled patterns and cached
+ * resolutions are reused.
+ *
+ * @see Router#setParsingParallelism(int)
+ */
+final class RouteLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(RouteLoader.class);
+
+    /**
+     * Coarsest timestamp resolution of file systems, in milliseconds: a file
+     * modified that close to the time it was read may have been modified
+     * again since, with the same timestamp.
+     */
+    private static final long TIMESTAMP_RESOLUTION = 2000;
+
+    private RouteLoader() {
+    }
+
+    /**
+     * Parse the given route files.
+     *
+     * @param previous    the route files loaded before, whose unchanged
+     *                    routes are kept, or null
+     * @param parallelism maximum number of route files parsed at once
+     */
+    static List<RouteFile> load(List<Resource> fileResources, List<RouteFile> previous, int parallelism) throws IOException {
+        long start = System.nanoTime();
+        Map<String, RouteFile> previousFiles = new HashMap<String, RouteFile>();
+        if (previous != null) {
+            for (RouteFile file : previous) {
+                previousFiles.put(file.resource.getDescription(), file);
+            }
+        }
+        List<RouteFile> files = new ArrayList<RouteFile>(fileResources.size());
+        List<RouteFile> changed = new ArrayList<RouteFile>(fileResources.size());
+        for (Resource fileResource : fileResources) {
+            RouteFile file = new RouteFile(fileResource, previousFiles.remove(fileResource.getDescription()));
+            files.add(file);
+            if (!file.keepPrevious()) {
+                changed.add(file);
+            }
+        }
+        int threads = Math.max(1, Math.min(parallelism, changed.size()));
+        if (threads > 1) {
+            parseInParallel(changed, threads);
+        } else {
+            for (RouteFile file : changed) {
+                file.call();
+            }
+        }
+
+        long parsed = System.nanoTime();
+        int count = 0;
+        long parsingNanos = 0;
+        for (RouteFile file : files) {
+            count += file.routes.size();
+            parsingNanos += file.parsingNanos;
+            if (logger.isDebugEnabled() && changed.contains(file)) {
+                logger.debug("Parsed " + file.routes.size() + " routes from " + file.resource.getDescription()
+                        + " in " + millis(file.parsingNanos) + " ms");
+            }
+        }
+        if (previous != null) {
+            for (RouteFile file : files) {
+                if (file.previous == null) {
+                    file.added.addAll(file.routes);
+                }
+            }
+            logChanges(files, previousFiles.values());
+        }
+        for (RouteFile file : files) {
+            file.forgetPrevious();
+        }
+        long end = System.nanoTime();
+        if (logger.isInfoEnabled()) {
+            logger.info("Loaded " + count + " routes from " + files.size() + " route files in " + millis(end - start)
+                    + " ms: reading and parsing " + changed.size() + " changed files " + millis(parsingNanos)
+                    + " ms on " + threads + " threads, assembling " + millis(end - parsed) + " ms");
+        }
+        return files;
+    }
+
+    /**
+     * Returns the routes of the given route files, in declaration order.
+     */
+    static List<Route> routes(List<RouteFile> files) {
+        int count = 0;
+        for (RouteFile file : files) {
+            count += file.routes.size();
+        }
+        List<Route> routes = new ArrayList<Route>(Math.max(count, 500));
+        for (RouteFile file : files) {
+            routes.addAll(file.routes);
+        }
+        return routes;
+    }
+
+    /**
+     * Log the routes added, removed and changed since the previous load.
+     *
+     * @param removedFiles the route files previously loaded that are gone
+     */
+    private static void logChanges(List<RouteFile> files, Iterable<RouteFile> removedFiles) {
+        int added = 0;
+        int removed = 0;
+        int changed = 0;
+        for (RouteFile file : files) {
+            added += file.added.size();
+            removed += file.removed.size();
+            changed += file.changed.size();
+            log("Added route ", file.added);
+            log("Removed route ", file.removed);
+            log("Changed route ", file.changed);
+        }
+        for (RouteFile file : removedFiles) {
+            removed += file.routes.size();
+            log("Removed route ", file.routes);
+        }
+        if (logger.isInfoEnabled()) {
+            logger.info("Route changes: " + added + " added, " + removed + " removed, " + changed + " changed");
+        }
+    }
+
+    private static void log(String change, List<Route> routes) {
+        if (logger.isDebugEnabled()) {
+            for (Route route : routes) {
+                logger.debug(change + route + " (" + route.routesFile + ":" + route.routesFileLine + ")");
+            }
+        }
+    }
+
+    private static void parseInParallel(List<RouteFile> files, int threads) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new LoaderThreadFactory());
+        try {
+            for (Future<Void> parsing : executor.invokeAll(files)) {
+                parsing.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while parsing route files");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Returns the name routes parsed from a route file refer to: its path
+     * if it is a file, its description otherwise (e.g. in a jar).
+     */
+    static String location(Resource fileResource) {
+        try {
+            return fileResource.getFile().getAbsolutePath();
+        } catch (IOException e) {
+            return fileResource.getDescription();
+        }
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    static long checksum(Resource fileResource) throws IOException {
+        CheckedInputStream in = new CheckedInputStream(fileResource.getInputStream(), new CRC32());
+        try {
+            byte[] buffer = new byte[8192];
+            while (in.read(buffer) != -1) {
+                // only computing the checksum
+            }
+        } finally {
+            in.close();
+        }
+        return in.getChecksum().getValue();
+    }
+
+    private static String routeKey(Route route) {
+        return route.method + route.formats + " " + route.host + route.path;
+    }
+
+    private static boolean sameDefinition(Route route, Route other) {
+        return routeKey(route).equals(routeKey(other)) && route.action.equals(other.action)
+                && route.staticArgs.equals(other.staticArgs);
+    }
+
+    /**
+     * A route file, the routes parsed from it, and how they changed since
+     * the file was previously loaded.
+     */
+    static final class RouteFile implements Callable<Void> {
+
+        final Resource resource;
+        /**
+         * The same route file as previously loaded, until this one is
+         * loaded: not kept afterwards, so that previously loaded routes
+         * can be collected.
+         */
+        private RouteFile previous;
+        private final long lastModified;
+        private long readTime;
+        private long checksum;
+        List<Route> routes = new ArrayList<Route>();
+        final List<Route> added = new ArrayList<Route>();
+        final List<Route> removed = new ArrayList<Route>();
+        final List<Route> changed = new ArrayList<Route>();
+        long parsingNanos;
+
+        /**
+         * @param previous the same route file, as previously loaded, or null
+         */
+        RouteFile(Resource resource, RouteFile previous) {
+            this.resource = resource;
+            this.previous = previous;
+            this.lastModified = lastModified(resource);
+        }
+
+        private static long lastModified(Resource resource) {
+            try {
+                return resource.lastModified();
+            } catch (IOException e) {
+                return 0;
+            }
+        }
+
+        /**
+         * Keep the previous routes if this file wasn't modified since.
+         *
+         * @return whether the previous routes were kept
+         */
+        boolean keepPrevious() {
+            if (previous == null || lastModified == 0 || lastModified != previous.lastModified
+                    || lastModified + TIMESTAMP_RESOLUTION > previous.readTime) {
+                return false;
+            }
+            readTime = previous.readTime;
+            checksum = previous.checksum;
+            routes = previous.routes;
+            return true;
+        }
+
+        /**
+         * Drop the previous route file and the changes since, once logged.
+         */
+        void forgetPrevious() {
+            previous = null;
+            added.clear();
+            removed.clear();
+            changed.clear();
+        }
+
+        public Void call() throws IOException {
+            long start = System.nanoTime();
+            readTime = System.currentTimeMillis();
+            if (previous != null && checksum(resource) == previous.checksum) {
+                // only touched
+                checksum = previous.checksum;
+                routes = previous.routes;
+                parsingNanos = System.nanoTime() - start;
+                return null;
+            }
+            CheckedInputStream in = new CheckedInputStream(resource.getInputStream(), new CRC32());
+            Reader reader = new InputStreamReader(in);
+            try {
+                RouteFileParser.parse(reader, location(resource), routes);
+            } finally {
+                reader.close();
+            }
+            checksum = in.getChecksum().getValue();
+            if (previous != null) {
+                keepUnchangedRoutes();
+            }
+            parsingNanos = System.nanoTime() - start;
+            return null;
+        }
+
+        /**
+         * Replace the parsed routes by the previous ones with the same
+         * definition on the same line, and collect the changes.
+         */
+        private void keepUnchangedRoutes() {
+            Map<String, LinkedList<Route>> previousRoutes = new HashMap<String, LinkedList<Route>>();
+            for (Route route : previous.routes) {
+                String key = routeKey(route);
+                LinkedList<Route> sameKey = previousRoutes.get(key);
+                if (sameKey == null) {
+                    sameKey = new LinkedList<Route>();
+                    previousRoutes.put(key, sameKey);
+                }
+                sameKey.add(route);
+            }
+            for (int i = 0; i < routes.size(); i++) {
+                Route route = routes.get(i);
+                LinkedList<Route> sameKey = previousRoutes.get(routeKey(route));
+                if (sameKey == null || sameKey.isEmpty()) {
+                    added.add(route);
+                    continue;
+                }
+                Route previousRoute = sameKey.removeFirst();
+                if (!sameDefinition(route, previousRoute)) {
+                    changed.add(route);
+                } else if (route.routesFileLine == previousRoute.routesFileLine) {
+                    routes.set(i, previousRoute);
+                }
+            }
+            for (LinkedList<Route> sameKey : previousRoutes.values()) {
+                removed.addAll(sameKey);
+            }
+        }
+    }
+
+    private static final class LoaderThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, "route-loader-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package org.resthub.web.springmvc.router;
+
+/**
+ * Strategies available to the {@link Router} for finding the routes that
+ * may match an incoming request.
+ *
+ * <p>Whatever the strategy, the first matching route in declaration order
+ * wins.
+ *
+ * @see RouterHandlerMapping#setLookupStrategy(RouteLookupStrategy)
+ */
+public enum RouteLookupStrategy {
+
+    /**
+     * Try every route in declaration order. Lookup cost grows with the
+     * number of routes.
+     */
+    SCAN,
+
+    /**
+     * Walk a prefix tree compiled from the route path segments, and only try
+     * the routes found along the way. Lookup cost grows with the path depth.
+     */
+    TRIE,
+
+    /**
+     * Compile all route patterns into a single automaton, that finds the
+     * matching routes and their arguments in one pass over the request path.
+     * Lookup cost grows with the path length; routes using regex features
+     * the automaton doesn't support are still matched one by one.
+     */
+    AUTOMATON
+}
@@ -0,0 +1,268 @@
+package org.resthub.web.springmvc.router;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.resthub.web.springmvc.router.Router.Route;
+import org.resthub.web.springmvc.router.regex.RegexEngine;
+import org.resthub.web.springmvc.router.regex.RegexPattern;
+
+/**
+ * Order in which a scan tries a list of routes, adapted to the routes hit
+ * counts.
+ *
+ * <p>Routes are split in runs of consecutive routes whose paths can't match
+ * the same request, e.g. <code>/users/{id}</code> and
+ * <code>/items/{id}</code>: at most one route of a run matches a request,
+ * so the routes of a run can be tried in any order without changing the
+ * matching route. Runs are tried in declaration order, and the routes of a
+ * run by decreasing number of hits; routes are reordered every
+ * {@link #REORDER_INTERVAL} scans.
+ *
+ * <p>Paths are compared segment by segment: two paths can't match the same
+ * request if they have different literal segments, a literal segment not
+ * matching a placeholder constraint, or different numbers of segments.
+ * Routes whose paths can't be compared that way are kept in place.
+ *
+ * @see RouteLookupStrategy#SCAN
+ */
+final class RouteOrdering {
+
+    /**
+     * Number of scans between two reorderings.
+     */
+    static final int REORDER_INTERVAL = 256;
+
+    /**
+     * Exclusive end of each run, in the route list.
+     */
+    private final int[] runEnds;
+    private final AtomicLongArray hits;
+    private final AtomicInteger scans = new AtomicInteger();
+    private final AtomicBoolean reordering = new AtomicBoolean();
+    private final RouteOrderingStatistics statistics;
+    /**
+     * Indexes in the route list of the routes to try, the routes of each
+     * run staying within the run bounds.
+     */
+    private volatile int[] order;
+
+    RouteOrdering(List<Route> routes, RegexEngine engine, RouteOrderingStatistics statistics) {
+        Map<String, RegexPattern> constraints = new HashMap<String, RegexPattern>();
+        Shape[] shapes = new Shape[routes.size()];
+        for (int i = 0; i < shapes.length; i++) {
+            shapes[i] = Shape.of(routes.get(i).path, engine, constraints);
+        }
+        List<Integer> ends = new ArrayList<Integer>();
+        int start = 0;
+        for (int i = 1; i < shapes.length; i++) {
+            for (int j = start; j < i; j++) {
+                if (!shapes[i].disjoint(shapes[j])) {
+                    ends.add(i);
+                    start = i;
+                    break;
+                }
+            }
+        }
+        ends.add(shapes.length);
+        this.runEnds = new int[ends.size()];
+        for (int i = 0; i < runEnds.length; i++) {
+            runEnds[i] = ends.get(i);
+        }
+        this.hits = new AtomicLongArray(shapes.length);
+        this.statistics = statistics;
+        this.order = new int[shapes.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+    }
+
+    /**
+     * Whether some routes can be tried out of declaration order.
+     */
+    boolean isReorderable() {
+        return runEnds.length < order.length;
+    }
+
+    int[] runEnds() {
+        return runEnds;
+    }
+
+    int[] order() {
+        return order;
+    }
+
+    /**
+     * Record a scan of the routes.
+     *
+     * @param matched index in the route list of the matching route, or -1
+     * @param tried   number of routes tried
+     */
+    void scanned(int matched, int tried) {
+        if (matched >= 0) {
+            hits.incrementAndGet(matched);
+            statistics.scanned(tried, matched + 1 - tried);
+        } else {
+            statistics.scanned(tried, 0);
+        }
+        if (scans.incrementAndGet() % REORDER_INTERVAL == 0) {
+            reorder();
+        }
+    }
+
+    /**
+     * Sort the routes of each run by decreasing hit counts (declaration
+     * order breaking ties). Concurrent scans keep using the previous order.
+     */
+    private void reorder() {
+        if (!reordering.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            final long[] counts = new long[hits.length()];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = hits.get(i);
+            }
+            Comparator<Integer> byHits = new Comparator<Integer>() {
+                public int compare(Integer a, Integer b) {
+                    long x = counts[a];
+                    long y = counts[b];
+                    return (x > y) ? -1 : ((x == y) ? 0 : 1);
+                }
+            };
+            int[] next = order.clone();
+            int start = 0;
+            for (int end : runEnds) {
+                if (end - start > 1) {
+                    Integer[] run = new Integer[end - start];
+                    for (int i = start; i < end; i++) {
+                        run[i - start] = i;
+                    }
+                    Arrays.sort(run, byHits);
+                    for (int i = start; i < end; i++) {
+                        next[i] = run[i - start];
+                    }
+                }
+                start = end;
+            }
+            order = next;
+            statistics.reordered();
+        } finally {
+            reordering.set(false);
+        }
+    }
+
+    /**
+     * The leading path segments a route path always matches.
+     */
+    private static final class Shape {
+
+        /**
+         * Literal segments (String) and placeholder constraints
+         * (RegexPattern).
+         */
+        final Object[] segments;
+        /**
+         * Whether matched paths have exactly as many segments, rather than
+         * at least as many.
+         */
+        final boolean fixed;
+
+        private Shape(Object[] segments, boolean fixed) {
+            this.segments = segments;
+            this.fixed = fixed;
+        }
+
+        static Shape of(String path, RegexEngine engine, Map<String, RegexPattern> constraints) {
+            List<String> routeSegments = RouteTrie.routeSegments(path);
+            if (routeSegments == null) {
+                return new Shape(new Object[0], false);
+            }
+            boolean fixed = true;
+            if (routeSegments.size() > 1 && routeSegments.get(routeSegments.size() - 1).equals("?")) {
+                // "/path/?" has one or two segments
+                routeSegments.remove(routeSegments.size() - 1);
+                fixed = false;
+            }
+            List<Object> segments = new ArrayList<Object>(routeSegments.size());
+            for (int i = 0; i < routeSegments.size(); i++) {
+                String segment = routeSegments.get(i);
+                if (i + 1 < routeSegments.size() && RouteTrie.startsWithQuantifier(routeSegments.get(i + 1))) {
+                    // the quantifier applies to the "/" separator before the next segment
+                    fixed = false;
+                    break;
+                }
+                Object known = known(segment, engine, constraints);
+                if (known == null) {
+                    fixed = false;
+                    break;
+                }
+                segments.add(known);
+            }
+            return new Shape(segments.toArray(), fixed);
+        }
+
+        private static Object known(String segment, RegexEngine engine, Map<String, RegexPattern> constraints) {
+            if (RouteTrie.isLiteral(segment)) {
+                return segment;
+            }
+            String regex = RouteTrie.placeholderConstraint(segment);
+            if (regex == null) {
+                return null;
+            }
+            RegexPattern constraint = constraints.get(regex);
+            if (constraint == null) {
+                try {
+                    constraint = engine.compile(regex, false);
+                } catch (IllegalArgumentException e) {
+                    // only valid within the full route pattern
+                    return null;
+                }
+                constraints.put(regex, constraint);
+            }
+            return constraint;
+        }
+
+        /**
+         * Whether no path can match both shapes.
+         */
+        boolean disjoint(Shape other) {
+            int common = Math.min(segments.length, other.segments.length);
+            for (int i = 0; i < common; i++) {
+                if (disjoint(segments[i], other.segments[i])) {
+                    return true;
+                }
+            }
+            if (fixed && other.fixed) {
+                return segments.length != other.segments.length;
+            }
+            if (fixed) {
+                return segments.length < other.segments.length;
+            }
+            if (other.fixed) {
+                return other.segments.length < segments.length;
+            }
+            return false;
+        }
+
+        private static boolean disjoint(Object segment, Object other) {
+            if (segment instanceof String && other instanceof String) {
+                return !segment.equals(other);
+            }
+            if (segment instanceof String) {
+                return !((RegexPattern) other).matches((String) segment);
+            }
+            if (other instanceof String) {
+                return !((RegexPattern) segment).matches((String) other);
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package org.resthub.web.springmvc.router;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of the adaptive route ordering, accumulated since it was last
+ * configured.
+ *
+ * @see RouterHandlerMapping#setAdaptiveOrdering(boolean)
+ */
+public final class RouteOrderingStatistics {
+
+    private final AtomicLong scans = new AtomicLong();
+    private final AtomicLong routesTried = new AtomicLong();
+    private final AtomicLong routesSaved = new AtomicLong();
+    private final AtomicLong reorders = new AtomicLong();
+
+    /**
+     * Number of scans of reorderable routes, a request scanning the
+     * routes of every host it may match.
+     */
+    public long getScans() {
+        return scans.get();
+    }
+
+    /**
+     * Number of routes tried by those scans.
+     */
+    public long getRoutesTried() {
+        return routesTried.get();
+    }
+
+    /**
+     * Number of routes those scans would have tried in addition if
+     * routes had been tried in declaration order.
+     */
+    public long getRoutesSaved() {
+        return routesSaved.get();
+    }
+
+    /**
+     * Number of times routes have been reordered by their hit counts.
+     */
+    public long getReorders() {
+        return reorders.get();
+    }
+
+    void scanned(int tried, int saved) {
+        scans.incrementAndGet();
+        routesTried.addAndGet(tried);
+        if (saved != 0) {
+            routesSaved.addAndGet(saved);
+        }
+    }
+
+    void reordered() {
+        reorders.incrementAndGet();
+    }
+
+    @Override
+    public String toString() {
+        return "scans=" + getScans() + ", routesTried=" + getRoutesTried()
+                + ", routesSaved=" + getRoutesSaved() + ", reorders=" + getReorders();
+    }
+}
@@ -0,0 +1,154 @@
+package org.resthub.web.springmvc.router;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.resthub.web.springmvc.router.Router.Route;
+import org.resthub.web.springmvc.router.Router.Route.Arg;
+import org.resthub.web.springmvc.router.regex.LazyRegexPattern;
+import org.resthub.web.springmvc.router.regex.RegexEngine;
+import org.resthub.web.springmvc.router.regex.RegexPattern;
+
+/**
+ * Pool of the patterns and arguments of routes, shared by the routes with
+ * the same regular expressions: e.g. the ".*" host pattern of routes
+ * without host, or the "[^/]+" constraint of <code>{id}</code> arguments.
+ *
+ * <p>Compiled patterns are immutable and thread safe; shared arguments
+ * must not be modified. Patterns and arguments no route uses anymore are
+ * evicted when route files are reloaded.
+ */
+final class RoutePatterns {
+
+    private final RegexEngine engine;
+    private final ConcurrentMap<String, RegexPattern> patterns = new ConcurrentHashMap<String, RegexPattern>();
+    private final ConcurrentMap<String, RegexPattern> ignoreCasePatterns = new ConcurrentHashMap<String, RegexPattern>();
+    private final ConcurrentMap<ArgKey, Arg> args = new ConcurrentHashMap<ArgKey, Arg>();
+
+    RoutePatterns(RegexEngine engine) {
+        this.engine = engine;
+    }
+
+    RegexEngine getEngine() {
+        return engine;
+    }
+
+    /**
+     * Returns the pattern of the given regular expression.
+     *
+     * @param lazy whether the pattern may be compiled on first use
+     */
+    RegexPattern pattern(String regex, boolean ignoreCase, boolean lazy) {
+        ConcurrentMap<String, RegexPattern> pool = ignoreCase ? ignoreCasePatterns : patterns;
+        RegexPattern pattern = pool.get(regex);
+        if (pattern == null) {
+            pattern = lazy ? new LazyRegexPattern(engine, regex, ignoreCase) : engine.compile(regex, ignoreCase);
+            RegexPattern pooled = pool.putIfAbsent(regex, pattern);
+            if (pooled != null) {
+                pattern = pooled;
+            }
+        }
+        if (!lazy && pattern instanceof LazyRegexPattern) {
+            // report invalid regular expressions now
+            ((LazyRegexPattern) pattern).compiled();
+        }
+        return pattern;
+    }
+
+    /**
+     * Returns an argument with the given name, constraint and default
+     * value.
+     *
+     * @param constraint a pattern of this pool
+     */
+    Arg arg(String name, RegexPattern constraint, String defaultValue) {
+        ArgKey key = new ArgKey(name, constraint, defaultValue);
+        Arg arg = args.get(key);
+        if (arg == null) {
+            arg = new Arg();
+            arg.name = name;
+            arg.constraint = constraint;
+            arg.defaultValue = defaultValue;
+            Arg pooled = args.putIfAbsent(key, arg);
+            if (pooled != null) {
+                arg = pooled;
+            }
+        }
+        return arg;
+    }
+
+    /**
+     * Evict the patterns and arguments the given routes don't use. Routes
+     * being built concurrently may then compile their own patterns.
+     */
+    void retainUsedBy(List<Route> routes) {
+        Set<Object> used = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+        for (Route route : routes) {
+            used.add(route.pattern);
+            used.add(route.hostPattern);
+            used.add(route.actionPattern);
+            for (Arg arg : route.args) {
+                used.add(arg);
+                used.add(arg.constraint);
+            }
+            if (route.hostArg != null) {
+                used.add(route.hostArg);
+                used.add(route.hostArg.constraint);
+            }
+        }
+        retain(patterns, used);
+        retain(ignoreCasePatterns, used);
+        retain(args, used);
+    }
+
+    private static void retain(Map<?, ?> pool, Set<Object> used) {
+        for (Iterator<?> values = pool.values().iterator(); values.hasNext(); ) {
+            if (!used.contains(values.next())) {
+                values.remove();
+            }
+        }
+    }
+
+    int getPatternCount() {
+        return patterns.size() + ignoreCasePatterns.size();
+    }
+
+    int getArgCount() {
+        return args.size();
+    }
+
+    private static final class ArgKey {
+
+        private final String name;
+        private final RegexPattern constraint;
+        private final String defaultValue;
+
+        ArgKey(String name, RegexPattern constraint, String defaultValue) {
+            this.name = name;
+            this.constraint = constraint;
+            this.defaultValue = defaultValue;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof ArgKey)) {
+                return false;
+            }
+            ArgKey other = (ArgKey) o;
+            return name.equals(other.name) && constraint == other.constraint
+                    && (defaultValue == null ? other.defaultValue == null : defaultValue.equals(other.defaultValue));
+        }
+
+        @Override
+        public int hashCode() {
+            int h = name.hashCode() * 31 + System.identityHashCode(constraint);
+            return h * 31 + ((defaultValue == null) ? 0 : defaultValue.hashCode());
+        }
+    }
+}
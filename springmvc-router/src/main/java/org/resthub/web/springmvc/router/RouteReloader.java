@@ -0,0 +1,122 @@
+package org.resthub.web.springmvc.router;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourcePatternResolver;
+
+/**
+ * Reloads routes on a background thread when route files change, so that
+ * requests never wait for route files to be checked or parsed.
+ *
+ * <p>Route files are checked every interval; they are reloaded once they
+ * stayed unchanged for a whole interval, so that files being written or
+ * several files changed together are only reloaded once. When reloading
+ * fails, the previous routes are kept until route files change again.
+ *
+ * @see RouterHandlerMapping#setAutoReloadEnabled(boolean)
+ */
+final class RouteReloader {
+
+    private static final Logger logger = LoggerFactory.getLogger(RouteReloader.class);
+
+    private final ResourcePatternResolver resolver;
+    private final List<String> routeFiles;
+    private final ScheduledExecutorService executor;
+    /**
+     * Last modification time of the route files loaded, by route file.
+     */
+    private Map<String, Long> loaded;
+    /**
+     * Last modification time of the changed route files, when last checked.
+     */
+    private Map<String, Long> changed;
+
+    private RouteReloader(ResourcePatternResolver resolver, List<String> routeFiles) {
+        this.resolver = resolver;
+        this.routeFiles = routeFiles;
+        this.executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            public Thread newThread(Runnable task) {
+                Thread thread = new Thread(task, "route-reloader");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Start checking the given route files, as currently loaded.
+     *
+     * @param interval delay between two checks, in milliseconds
+     */
+    static RouteReloader start(ResourcePatternResolver resolver, List<String> routeFiles, long interval) throws IOException {
+        final RouteReloader reloader = new RouteReloader(resolver, routeFiles);
+        reloader.loaded = reloader.lastModified(reloader.resolve());
+        reloader.executor.scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                reloader.check();
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+        return reloader;
+    }
+
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    private void check() {
+        List<Resource> resources;
+        Map<String, Long> current;
+        try {
+            resources = resolve();
+            current = lastModified(resources);
+        } catch (IOException e) {
+            logger.warn("Could not check route files for changes", e);
+            return;
+        }
+        if (current.equals(loaded)) {
+            changed = null;
+            return;
+        }
+        if (!current.equals(changed)) {
+            // wait for route files to stay unchanged for a whole interval
+            changed = current;
+            return;
+        }
+        changed = null;
+        loaded = current;
+        try {
+            Router.load(resources);
+            logger.info("Reloaded routes from " + resources.size() + " route files");
+        } catch (Exception e) {
+            logger.error("Could not reload routes, keeping the previous routes", e);
+        }
+    }
+
+    private List<Resource> resolve() throws IOException {
+        List<Resource> resources = new ArrayList<Resource>();
+        for (String routeFile : routeFiles) {
+            resources.addAll(Arrays.asList(resolver.getResources(routeFile)));
+        }
+        return resources;
+    }
+
+    private Map<String, Long> lastModified(List<Resource> resources) throws IOException {
+        Map<String, Long> lastModified = new LinkedHashMap<String, Long>();
+        for (Resource resource : resources) {
+            lastModified.put(resource.getDescription(), resource.exists() ? resource.lastModified() : -1L);
+        }
+        return lastModified;
+    }
+}
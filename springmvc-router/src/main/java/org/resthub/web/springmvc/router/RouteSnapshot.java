@@ -0,0 +1,246 @@
+package org.resthub.web.springmvc.router;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+
+import org.resthub.web.springmvc.router.Router.Route;
+import org.resthub.web.springmvc.router.exceptions.RouteFileParsingException;
+import org.resthub.web.springmvc.router.regex.RegexPattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+
+/**
+ * Binary snapshot of the routes parsed from route files, compiled at build
+ * time so that applications don't parse their route files at startup.
+ *
+ * <p>A snapshot keeps the checksum of each route file it was compiled from,
+ * and is ignored when the route files don't match anymore. Patterns are
+ * stored as regular expressions: path patterns are compiled when the
+ * snapshot is read (unless {@link PatternCompilation lazily compiled}), the
+ * other ones when first used.
+ *
+ * @see Router#load(List, Resource)
+ */
+public final class RouteSnapshot {
+
+    private static final Logger logger = LoggerFactory.getLogger(RouteSnapshot.class);
+
+    /**
+     * "RTSN", the first bytes of a snapshot.
+     */
+    private static final int MAGIC = 0x5254534E;
+    private static final int VERSION = 2;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private RouteSnapshot() {
+    }
+
+    /**
+     * Parse the given route files, in order, and write their routes to a
+     * snapshot.
+     *
+     * @throws RouteFileParsingException if a route file has invalid route
+     *                                   definitions
+     */
+    public static void compile(List<Resource> routeFiles, OutputStream out) throws IOException {
+        List<Route> routes = new ArrayList<Route>(500);
+        List<Integer> routeFileIndexes = new ArrayList<Integer>(500);
+        long[] checksums = new long[routeFiles.size()];
+        for (int i = 0; i < routeFiles.size(); i++) {
+            Resource routeFile = routeFiles.get(i);
+            CheckedInputStream in = new CheckedInputStream(routeFile.getInputStream(), new CRC32());
+            List<String> errors;
+            try {
+                errors = RouteFileParser.parse(new InputStreamReader(in), routeFile.getDescription(), routes);
+            } finally {
+                in.close();
+            }
+            if (!errors.isEmpty()) {
+                throw new RouteFileParsingException("Invalid route definitions in "
+                        + routeFile.getDescription() + ": " + errors);
+            }
+            checksums[i] = in.getChecksum().getValue();
+            while (routeFileIndexes.size() < routes.size()) {
+                routeFileIndexes.add(i);
+            }
+        }
+
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(checksums.length);
+        for (long checksum : checksums) {
+            data.writeLong(checksum);
+        }
+        data.writeInt(routes.size());
+        for (int i = 0; i < routes.size(); i++) {
+            write(data, routes.get(i), routeFileIndexes.get(i));
+        }
+        data.flush();
+    }
+
+    /**
+     * Read the routes of a snapshot compiled from the given route files.
+     *
+     * @return the routes, or null if the snapshot is stale or unreadable
+     */
+    static List<Route> read(InputStream in, List<Resource> routeFiles) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        int magic;
+        try {
+            magic = data.readInt();
+        } catch (EOFException e) {
+            magic = 0;
+        }
+        if (magic != MAGIC) {
+            logger.warn("Ignoring route snapshot: not a route snapshot");
+            return null;
+        }
+        int version = data.readInt();
+        if (version != VERSION) {
+            logger.info("Ignoring route snapshot: version " + version + " instead of " + VERSION);
+            return null;
+        }
+        int routeFileCount = data.readInt();
+        if (routeFileCount != routeFiles.size()) {
+            logger.info("Ignoring route snapshot: compiled from " + routeFileCount + " route files instead of "
+                    + routeFiles.size() + ", check the configured route files");
+            return null;
+        }
+        String[] routeFileNames = new String[routeFiles.size()];
+        for (int i = 0; i < routeFileNames.length; i++) {
+            Resource routeFile = routeFiles.get(i);
+            if (data.readLong() != RouteLoader.checksum(routeFile)) {
+                logger.info("Ignoring route snapshot: " + routeFile.getDescription() + " changed since it was compiled");
+                return null;
+            }
+            routeFileNames[i] = RouteLoader.location(routeFile);
+        }
+        int count = data.readInt();
+        List<Route> routes = new ArrayList<Route>(count);
+        try {
+            for (int i = 0; i < count; i++) {
+                routes.add(read(data, routeFileNames));
+            }
+        } catch (EOFException e) {
+            logger.warn("Ignoring route snapshot: truncated after " + routes.size() + " routes");
+            return null;
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("Read " + count + " routes from route snapshot");
+        }
+        return routes;
+    }
+
+    private static void write(DataOutputStream data, Route route, int routeFileIndex) throws IOException {
+        data.writeInt(routeFileIndex);
+        data.writeInt(route.routesFileLine);
+        writeString(data, route.method);
+        writeString(data, route.path);
+        writeString(data, route.host);
+        writeString(data, route.action);
+        data.writeInt(route.formats.size());
+        for (String format : route.formats) {
+            writeString(data, format);
+        }
+        data.writeInt(route.staticArgs.size());
+        for (Map.Entry<String, String> staticArg : route.staticArgs.entrySet()) {
+            writeString(data, staticArg.getKey());
+            writeString(data, staticArg.getValue());
+        }
+        data.writeInt(route.args.size());
+        for (Route.Arg arg : route.args) {
+            writeString(data, arg.name);
+            writeString(data, arg.constraint.toString());
+            writeNullable(data, arg.defaultValue);
+        }
+        data.writeInt(route.args.indexOf(route.hostArg));
+        writeString(data, route.pattern.toString());
+        writeString(data, route.hostPattern.toString());
+        writeString(data, route.actionPattern.toString());
+        data.writeInt(route.actionArgs.size());
+        for (String actionArg : route.actionArgs) {
+            writeString(data, actionArg);
+        }
+        writeNullable(data, route.exactHost);
+        writeNullable(data, route.hostSuffix);
+    }
+
+    private static Route read(DataInputStream data, String[] routeFileNames) throws IOException {
+        Route route = new Route();
+        route.routesFile = routeFileNames[data.readInt()];
+        route.routesFileLine = data.readInt();
+        route.method = readString(data);
+        route.methodMask = Route.methodMask(route.method);
+        route.path = readString(data);
+        route.host = readString(data);
+        route.action = readString(data);
+        for (int i = data.readInt(); i > 0; i--) {
+            route.addFormat(readString(data));
+        }
+        for (int i = data.readInt(); i > 0; i--) {
+            route.staticArgs.put(readString(data), readString(data));
+        }
+        for (int i = data.readInt(); i > 0; i--) {
+            String name = readString(data);
+            RegexPattern constraint = Router.lazyPattern(readString(data), false);
+            route.args.add(Router.routeArg(name, constraint, readNullable(data)));
+        }
+        int hostArg = data.readInt();
+        if (hostArg >= 0) {
+            route.hostArg = route.args.get(hostArg);
+        }
+        route.pattern = Router.compilePattern(readString(data), false);
+        route.hostPattern = Router.lazyPattern(readString(data), false);
+        route.actionPattern = Router.lazyPattern(readString(data), true);
+        for (int i = data.readInt(); i > 0; i--) {
+            route.actionArgs.add(readString(data));
+        }
+        route.exactHost = readNullable(data);
+        route.hostSuffix = readNullable(data);
+        route.actionTemplate = ActionTemplate.compile(route.action);
+        route.computeLayout();
+        return route;
+    }
+
+    /**
+     * Write a string as its UTF-8 bytes, prefixed by their count: unlike
+     * {@link DataOutputStream#writeUTF(String)}, not limited to 64KB.
+     */
+    private static void writeString(DataOutputStream data, String value) throws IOException {
+        byte[] bytes = value.getBytes(UTF8);
+        data.writeInt(bytes.length);
+        data.write(bytes);
+    }
+
+    private static String readString(DataInputStream data) throws IOException {
+        byte[] bytes = new byte[data.readInt()];
+        data.readFully(bytes);
+        return new String(bytes, UTF8);
+    }
+
+    private static void writeNullable(DataOutputStream data, String value) throws IOException {
+        data.writeBoolean(value != null);
+        if (value != null) {
+            writeString(data, value);
+        }
+    }
+
+    private static String readNullable(DataInputStream data) throws IOException {
+        return data.readBoolean() ? readString(data) : null;
+    }
+}
@@ -0,0 +1,119 @@
+package org.resthub.web.springmvc.router;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.resthub.web.springmvc.router.Router.Route;
+
+/**
+ * Changes to the routes registered at runtime, applied all at once by
+ * {@link #commit()}: requests are resolved either with all of them or with
+ * none of them.
+ *
+ * <p>Registered routes have an id, unique among registered routes, and are
+ * tried after the routes loaded from route files, in registration order; a
+ * replaced route keeps its place. They are kept when route files are
+ * reloaded.
+ *
+ * <pre class="code">
+ * Router.transaction()
+ *     .add("tenant-a.users", "GET", "/a/users", "userController.list")
+ *     .replace("tenant-a.home", "GET", "/a", "homeController.show")
+ *     .remove("tenant-b.users")
+ *     .commit();
+ * </pre>
+ *
+ * @see Router#transaction()
+ */
+public final class RouteTransaction {
+
+    private final List<Change> changes = new ArrayList<Change>();
+    private boolean committed;
+
+    RouteTransaction() {
+    }
+
+    public RouteTransaction add(String id, String method, String path, String action) {
+        return add(id, method, path, action, null, null);
+    }
+
+    /**
+     * Register a new route.
+     *
+     * @param params  static params, e.g. "format:'json'", or null
+     * @param headers route formats, e.g. "json", or null
+     */
+    public RouteTransaction add(String id, String method, String path, String action, String params, String headers) {
+        return change(ChangeType.ADD, id, Router.getRoute(method, path, action, params, headers));
+    }
+
+    public RouteTransaction replace(String id, String method, String path, String action) {
+        return replace(id, method, path, action, null, null);
+    }
+
+    /**
+     * Replace a registered route, in place.
+     */
+    public RouteTransaction replace(String id, String method, String path, String action, String params, String headers) {
+        return change(ChangeType.REPLACE, id, Router.getRoute(method, path, action, params, headers));
+    }
+
+    /**
+     * Unregister a route.
+     */
+    public RouteTransaction remove(String id) {
+        return change(ChangeType.REMOVE, id, null);
+    }
+
+    /**
+     * Apply the changes of this transaction to the current routes.
+     *
+     * @throws IllegalArgumentException if a route added is already
+     *                                  registered, or a route replaced or
+     *                                  removed isn't; no change is applied,
+     *                                  and the transaction can be committed
+     *                                  again
+     */
+    public void commit() {
+        if (committed) {
+            throw new IllegalStateException("Route transaction already committed");
+        }
+        Router.commit(changes);
+        committed = true;
+    }
+
+    private RouteTransaction change(ChangeType type, String id, Route route) {
+        if (id == null) {
+            throw new IllegalArgumentException("Registered routes need an id");
+        }
+        if (committed) {
+            throw new IllegalStateException("Route transaction already committed");
+        }
+        if (route != null) {
+            route.id = id;
+        }
+        changes.add(new Change(type, id, route));
+        return this;
+    }
+
+    enum ChangeType {
+        ADD, REPLACE, REMOVE
+    }
+
+    static final class Change {
+
+        final ChangeType type;
+        final String id;
+        /**
+         * The route added or replacing the registered one, null when
+         * removing a route.
+         */
+        final Route route;
+
+        Change(ChangeType type, String id, Route route) {
+            this.type = type;
+            this.id = id;
+            this.route = route;
+        }
+    }
+}
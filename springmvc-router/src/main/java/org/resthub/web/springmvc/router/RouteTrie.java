@@ -0,0 +1,342 @@
+package org.resthub.web.springmvc.router;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.resthub.web.springmvc.router.Router.Route;
+import org.resthub.web.springmvc.router.regex.RegexEngine;
+import org.resthub.web.springmvc.router.regex.RegexPattern;
+
+/**
+ * Prefix tree built from the path segments of a route table.
+ *
+ * <p>Each route path is split on its top-level "/" separators. Segments are
+ * indexed as literals, unconstrained <code>{param}</code> placeholders or
+ * constrained <code>{&lt;regex&gt;param}</code> placeholders; as soon as a
+ * segment can't be proven to stay within a single path segment (optional
+ * slashes, alternations, wildcards...), the route is registered as a
+ * catch-all candidate at the current depth.
+ *
+ * <p>The trie only narrows down the candidate list: candidates are returned
+ * in declaration order and must still be checked against the request, so
+ * that the first matching route is the same one a full scan would find.
+ *
+ * @see RouteLookupStrategy#TRIE
+ */
+final class RouteTrie {
+
+    private static final java.util.regex.Pattern PARAM = java.util.regex.Pattern.compile("\\{[a-zA-Z_0-9]+\\}");
+    private static final java.util.regex.Pattern CONSTRAINED_PARAM = java.util.regex.Pattern.compile("\\{<(.+)>[a-zA-Z_0-9]+\\}");
+    /**
+     * Constraint of the unconstrained <code>{param}</code> placeholders.
+     */
+    static final String ANY_SEGMENT = "[^/]+";
+
+    private final Node root = new Node();
+    private final RegexEngine engine;
+
+    RouteTrie(List<Route> routes, RegexEngine engine) {
+        this.engine = engine;
+        for (int i = 0; i < routes.size(); i++) {
+            insert(routes.get(i).path, i);
+        }
+    }
+
+    /**
+     * Returns the positions (in the list this trie was built from) of the
+     * routes that may match the given request path, in ascending order.
+     */
+    int[] candidates(String path) {
+        Positions found = new Positions();
+        collect(root, segments(path), 0, found);
+        Arrays.sort(found.values, 0, found.size);
+        int count = 0;
+        for (int i = 0; i < found.size; i++) {
+            if (count == 0 || found.values[i] != found.values[count - 1]) {
+                found.values[count++] = found.values[i];
+            }
+        }
+        return Arrays.copyOf(found.values, count);
+    }
+
+    private void insert(String path, int position) {
+        List<String> segments = routeSegments(path);
+        if (segments == null) {
+            root.addCatchAll(position);
+            return;
+        }
+        // "/path/?" is indexed both as "/path" and "/path/"
+        boolean optionalTrailingSlash = segments.size() > 1 && segments.get(segments.size() - 1).equals("?");
+        if (optionalTrailingSlash) {
+            segments.remove(segments.size() - 1);
+        }
+        Node node = root;
+        for (int depth = 0; depth < segments.size(); depth++) {
+            String segment = segments.get(depth);
+            String next = depth + 1 < segments.size() ? segments.get(depth + 1) : null;
+            if (next != null && startsWithQuantifier(next)) {
+                // the quantifier applies to the "/" separator we just split on
+                node.addCatchAll(position);
+                return;
+            }
+            Node child = node.child(segment, engine);
+            if (child == null) {
+                node.addCatchAll(position);
+                return;
+            }
+            node = child;
+        }
+        node.addTerminal(position);
+        if (optionalTrailingSlash) {
+            node.literalChild("").addTerminal(position);
+        }
+    }
+
+    private static void collect(Node node, String[] segments, int depth, Positions found) {
+        found.addAll(node.catchAll);
+        if (depth == segments.length) {
+            found.addAll(node.terminals);
+            return;
+        }
+        String segment = segments[depth];
+        Node literal = node.literals.get(segment);
+        if (literal != null) {
+            collect(literal, segments, depth + 1, found);
+        }
+        if (node.param != null && segment.length() > 0) {
+            collect(node.param, segments, depth + 1, found);
+        }
+        for (Map.Entry<RegexPattern, Node> constrained : node.constrained.entrySet()) {
+            if (constrained.getKey().matches(segment)) {
+                collect(constrained.getValue(), segments, depth + 1, found);
+            }
+        }
+    }
+
+    private static String[] segments(String path) {
+        int start = path.startsWith("/") ? 1 : 0;
+        return path.substring(start).split("/", -1);
+    }
+
+    /**
+     * Split a route path on the "/" separators that are not nested in a
+     * placeholder, a group or a character class.
+     *
+     * @return the path segments, or null if the path has no usable structure
+     */
+    static List<String> routeSegments(String path) {
+        if (!path.startsWith("/")) {
+            return null;
+        }
+        List<String> segments = new ArrayList<String>();
+        int braces = 0;
+        int parens = 0;
+        boolean inClass = false;
+        StringBuilder current = new StringBuilder();
+        for (int i = 1; i < path.length(); i++) {
+            char c = path.charAt(i);
+            if (c == '\\' && i + 1 < path.length()) {
+                current.append(c).append(path.charAt(++i));
+                continue;
+            }
+            if (inClass) {
+                inClass = c != ']';
+            } else if (c == '[') {
+                inClass = true;
+            } else if (c == '{') {
+                braces++;
+            } else if (c == '}') {
+                braces--;
+            } else if (c == '(') {
+                parens++;
+            } else if (c == ')') {
+                parens--;
+            } else if (c == '|' && braces == 0 && parens == 0) {
+                // top-level alternation: any part of the path may be skipped
+                return null;
+            } else if (c == '/' && braces == 0 && parens == 0) {
+                segments.add(current.toString());
+                current.setLength(0);
+                continue;
+            }
+            current.append(c);
+        }
+        segments.add(current.toString());
+        return segments;
+    }
+
+    static boolean startsWithQuantifier(String segment) {
+        if (segment.length() == 0) {
+            return false;
+        }
+        char c = segment.charAt(0);
+        return c == '?' || c == '*' || c == '+'
+                || (c == '{' && segment.length() > 1 && Character.isDigit(segment.charAt(1)));
+    }
+
+    static boolean isLiteral(String segment) {
+        for (int i = 0; i < segment.length(); i++) {
+            if ("\\.[]{}()*+?^$|".indexOf(segment.charAt(i)) > -1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the constraint of a route path segment made of a single
+     * placeholder that always stays within the segment ({@link #ANY_SEGMENT}
+     * if unconstrained), or null if the segment is not such a placeholder.
+     */
+    static String placeholderConstraint(String segment) {
+        if (PARAM.matcher(segment).matches() || segment.startsWith("{<[^/]+>") && PARAM.matcher("{" + segment.substring(8)).matches()) {
+            return ANY_SEGMENT;
+        }
+        java.util.regex.Matcher matcher = CONSTRAINED_PARAM.matcher(segment);
+        if (matcher.matches() && isSegmentBound(matcher.group(1))) {
+            return matcher.group(1);
+        }
+        return null;
+    }
+
+    /**
+     * Conservatively checks that a constraint regex can't match a "/", so
+     * that a placeholder using it always stays within a single segment.
+     */
+    static boolean isSegmentBound(String regex) {
+        boolean inClass = false;
+        char previous = 0;
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                if (i + 1 == regex.length()) {
+                    return false;
+                }
+                char escaped = regex.charAt(++i);
+                if (Character.isLetterOrDigit(escaped) && "dws".indexOf(escaped) < 0) {
+                    // \W, \S, \p{..}, \x2F... may all match a slash
+                    return false;
+                }
+                if (escaped == '/') {
+                    return false;
+                }
+                previous = escaped;
+                continue;
+            }
+            if (inClass) {
+                if (c == ']') {
+                    inClass = false;
+                } else if (c == '/') {
+                    return false;
+                } else if (c == '-' && previous != '[' && i + 1 < regex.length() && regex.charAt(i + 1) != ']') {
+                    char high = regex.charAt(i + 1);
+                    if (previous <= '/' && high >= '/') {
+                        return false;
+                    }
+                }
+            } else if (c == '[') {
+                if (i + 1 < regex.length() && regex.charAt(i + 1) == '^') {
+                    return false;
+                }
+                inClass = true;
+            } else if (c == '.' || c == '/') {
+                return false;
+            }
+            previous = c;
+        }
+        return !inClass;
+    }
+
+    /**
+     * Growable list of route positions collected during a lookup.
+     */
+    private static final class Positions {
+
+        int[] values = new int[8];
+        int size;
+
+        void addAll(int[] positions) {
+            if (positions.length == 0) {
+                return;
+            }
+            if (size + positions.length > values.length) {
+                values = Arrays.copyOf(values, Math.max(values.length * 2, size + positions.length));
+            }
+            System.arraycopy(positions, 0, values, size, positions.length);
+            size += positions.length;
+        }
+    }
+
+    private static final class Node {
+
+        private static final int[] NONE = new int[0];
+
+        final Map<String, Node> literals = new HashMap<String, Node>(4);
+        final Map<RegexPattern, Node> constrained = new LinkedHashMap<RegexPattern, Node>(2);
+        final Map<String, Node> constrainedByRegex = new HashMap<String, Node>(2);
+        Node param;
+        int[] terminals = NONE;
+        int[] catchAll = NONE;
+
+        /**
+         * Returns the child node for the given route segment, creating it if
+         * needed, or null if the segment can't be indexed.
+         */
+        Node child(String segment, RegexEngine engine) {
+            if (isLiteral(segment)) {
+                return literalChild(segment);
+            }
+            String regex = placeholderConstraint(segment);
+            if (regex == null) {
+                return null;
+            }
+            if (regex == ANY_SEGMENT) {
+                if (param == null) {
+                    param = new Node();
+                }
+                return param;
+            }
+            Node node = constrainedByRegex.get(regex);
+            if (node == null) {
+                RegexPattern pattern;
+                try {
+                    pattern = engine.compile(regex, false);
+                } catch (IllegalArgumentException e) {
+                    // only valid within the full route pattern
+                    return null;
+                }
+                node = new Node();
+                constrainedByRegex.put(regex, node);
+                constrained.put(pattern, node);
+            }
+            return node;
+        }
+
+        Node literalChild(String segment) {
+            Node node = literals.get(segment);
+            if (node == null) {
+                node = new Node();
+                literals.put(segment, node);
+            }
+            return node;
+        }
+
+        void addTerminal(int position) {
+            terminals = add(terminals, position);
+        }
+
+        void addCatchAll(int position) {
+            catchAll = add(catchAll, position);
+        }
+
+        private static int[] add(int[] positions, int position) {
+            int[] result = Arrays.copyOf(positions, positions.length + 1);
+            result[positions.length] = position;
+            return result;
+        }
+    }
+}
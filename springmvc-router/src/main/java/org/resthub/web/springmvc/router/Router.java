@@ -0,0 +1,1757 @@
+package org.resthub.web.springmvc.router;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.*;
+
+import jregex.Matcher;
+import jregex.Pattern;
+
+import org.resthub.web.springmvc.router.exceptions.ActionNotFoundException;
+import org.resthub.web.springmvc.router.exceptions.NoHandlerFoundException;
+import org.resthub.web.springmvc.router.exceptions.NoRouteFoundException;
+import org.resthub.web.springmvc.router.exceptions.RouteFileParsingException;
+import org.resthub.web.springmvc.router.regex.JRegexEngine;
+import org.resthub.web.springmvc.router.regex.LazyRegexPattern;
+import org.resthub.web.springmvc.router.regex.RegexEngine;
+import org.resthub.web.springmvc.router.regex.RegexMatch;
+import org.resthub.web.springmvc.router.regex.RegexPattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.web.method.HandlerMethod;
+
+/**
+ * <p>The router matches HTTP requests to action invocations.
+ * <p>Courtesy of Play! Framework Router
+ *
+ * @author Play! Framework developers
+ * @author Brian Clozel
+ * @see org.resthub.web.springmvc.router.RouterHandlerMapping
+ */
+public class Router {
+
+    /**
+     * Query string parameter used to override the request method
+     */
+    static final String METHOD_OVERRIDE_PARAM = "x-http-method-override=";
+    static final String[] OVERRIDE_METHODS = {"GET", "PUT", "POST", "DELETE", "PATCH"};
+
+    /**
+     * Timestamp the routes file was last loaded at.
+     */
+    public static long lastLoading = -1;
+    private static final Logger logger = LoggerFactory.getLogger(Router.class);
+
+    private static RouteLookupStrategy lookupStrategy = RouteLookupStrategy.SCAN;
+    private static RegexEngine patternEngine = new JRegexEngine();
+    /**
+     * Patterns shared by the routes loaded since the last load.
+     */
+    private static volatile RoutePatterns patterns = new RoutePatterns(patternEngine);
+    private static int cacheMaxEntries = 0;
+    private static long cacheMaxMemory = 0;
+    private static int cacheMaxMisses = 0;
+    private static RouteCacheStatistics cacheStatistics = new RouteCacheStatistics();
+    private static boolean adaptiveOrdering = false;
+    private static RouteOrderingStatistics orderingStatistics = new RouteOrderingStatistics();
+    private static MethodOverrideMode methodOverrideMode = MethodOverrideMode.ENABLED;
+    private static int parsingParallelism = 1;
+    private static PatternCompilation patternCompilation = PatternCompilation.EAGER;
+    private static Thread precompiler;
+    /**
+     * The current routes and the lookup structures built from them, replaced
+     * as a whole when routes or lookup settings change.
+     */
+    private static volatile RouteTable table = new RouteTable(new ArrayList<Route>(0), new ArrayList<Route>(0), null);
+    /**
+     * The route files the current routes were loaded from, or null if they
+     * must all be parsed on the next load.
+     */
+    private static List<RouteLoader.RouteFile> loadedFiles;
+    /**
+     * Held while route files are parsed, bound and published, so that
+     * concurrent loads (e.g. the {@link RouteReloader} thread and a manual
+     * reload) run one after the other, each one starting from the files
+     * published by the previous one. Taken before the Router class lock;
+     * request lookups never take it.
+     */
+    private static final Object loadLock = new Object();
+    /**
+     * Binds the static actions of routes to their handlers before routes
+     * are published, or null.
+     */
+    private static volatile HandlerBinder handlerBinder;
+
+    /**
+     * Remove all routes, and stop binding routes to handlers.
+     */
+    public static void clear() {
+        synchronized (loadLock) {
+            synchronized (Router.class) {
+                loadedFiles = null;
+                handlerBinder = null;
+                publish(new ArrayList<Route>(0), new ArrayList<Route>(0), false);
+            }
+        }
+    }
+
+    public static RouteLookupStrategy getLookupStrategy() {
+        return lookupStrategy;
+    }
+
+    /**
+     * Choose how candidate routes are looked up for incoming requests.
+     * @see RouteLookupStrategy
+     */
+    public static void setLookupStrategy(RouteLookupStrategy strategy) {
+        lookupStrategy = (strategy == null) ? RouteLookupStrategy.SCAN : strategy;
+        routesChanged();
+    }
+
+    /**
+     * Configure the cache of resolved requests, dropping the cached
+     * resolutions and resetting the cache statistics.
+     *
+     * @param maxEntries maximum number of cached resolutions, or 0 to
+     *                   disable the cache
+     * @param maxMemory  estimated maximum memory used by the cache in bytes,
+     *                   or 0 for no memory bound
+     * @param maxMisses  maximum number of cached requests matching no route,
+     *                   or 0 to look them up every time
+     */
+    public static void setCacheLimits(int maxEntries, long maxMemory, int maxMisses) {
+        cacheMaxEntries = Math.max(0, maxEntries);
+        cacheMaxMemory = Math.max(0, maxMemory);
+        cacheMaxMisses = Math.max(0, maxMisses);
+        cacheStatistics = new RouteCacheStatistics();
+        routesChanged();
+    }
+
+    public static RouteCacheStatistics getCacheStatistics() {
+        return cacheStatistics;
+    }
+
+    public static boolean isAdaptiveOrdering() {
+        return adaptiveOrdering;
+    }
+
+    /**
+     * Let {@link RouteLookupStrategy#SCAN scans} try first the most hit
+     * routes, among routes that can't match the same requests; the route
+     * matching a request stays the first one in declaration order. Resets
+     * the ordering statistics.
+     */
+    public static void setAdaptiveOrdering(boolean enabled) {
+        adaptiveOrdering = enabled;
+        orderingStatistics = new RouteOrderingStatistics();
+        routesChanged();
+    }
+
+    public static RouteOrderingStatistics getOrderingStatistics() {
+        return orderingStatistics;
+    }
+
+    public static MethodOverrideMode getMethodOverrideMode() {
+        return methodOverrideMode;
+    }
+
+    /**
+     * Choose how requests may override their HTTP method.
+     * @see MethodOverrideMode
+     */
+    public static void setMethodOverrideMode(MethodOverrideMode mode) {
+        methodOverrideMode = (mode == null) ? MethodOverrideMode.ENABLED : mode;
+    }
+
+    public static int getParsingParallelism() {
+        return parsingParallelism;
+    }
+
+    /**
+     * Choose how many route files may be parsed at once when loading
+     * routes; 1 to parse them one after the other on the calling thread.
+     */
+    public static void setParsingParallelism(int parallelism) {
+        parsingParallelism = Math.max(1, parallelism);
+    }
+
+    public static PatternCompilation getPatternCompilation() {
+        return patternCompilation;
+    }
+
+    /**
+     * Choose when the patterns of the routes added from now on are
+     * compiled; routes already loaded are left untouched.
+     * @see PatternCompilation
+     */
+    public static void setPatternCompilation(PatternCompilation compilation) {
+        synchronized (loadLock) {
+            synchronized (Router.class) {
+                patternCompilation = (compilation == null) ? PatternCompilation.EAGER : compilation;
+                loadedFiles = null;
+            }
+        }
+    }
+
+    /**
+     * Compile a route pattern, or defer its compilation to its first use
+     * as configured; identical patterns are shared.
+     */
+    static RegexPattern compilePattern(String regex, boolean ignoreCase) {
+        return patterns.pattern(regex, ignoreCase, patternCompilation != PatternCompilation.EAGER);
+    }
+
+    /**
+     * Returns a route pattern compiled on its first use; identical patterns
+     * are shared.
+     */
+    static RegexPattern lazyPattern(String regex, boolean ignoreCase) {
+        return patterns.pattern(regex, ignoreCase, true);
+    }
+
+    static RoutePatterns patterns() {
+        return patterns;
+    }
+
+    /**
+     * Returns a route argument; identical arguments are shared.
+     */
+    static Route.Arg routeArg(String name, RegexPattern constraint, String defaultValue) {
+        return patterns.arg(name, constraint, defaultValue);
+    }
+
+    public static RegexEngine getPatternEngine() {
+        return patternEngine;
+    }
+
+    /**
+     * Choose the regular expression engine compiling the routes added
+     * from now on; routes already loaded are left untouched.
+     * @see RegexEngine
+     */
+    public static void setPatternEngine(RegexEngine engine) {
+        synchronized (loadLock) {
+            synchronized (Router.class) {
+                patternEngine = (engine == null) ? new JRegexEngine() : engine;
+                patterns = new RoutePatterns(patternEngine);
+                loadedFiles = null;
+                routesChanged();
+            }
+        }
+    }
+
+    public static HandlerBinder getHandlerBinder() {
+        return handlerBinder;
+    }
+
+    /**
+     * Bind the static actions of the routes loaded or added from now on to
+     * their handlers, so that routes with unknown actions are rejected
+     * before being published. Routes loaded with another binder are all
+     * parsed and bound again on the next load.
+     *
+     * <p>The Router is static, so it binds routes for a single application
+     * context: once a binder is set, setting another one fails until it is
+     * reset with null or {@link #clear()}.
+     *
+     * @param binder the binder, or null to stop binding routes
+     * @throws IllegalStateException if another binder is already set
+     */
+    public static void setHandlerBinder(HandlerBinder binder) {
+        synchronized (loadLock) {
+            synchronized (Router.class) {
+                if (binder != null && handlerBinder != null && binder != handlerBinder) {
+                    throw new IllegalStateException("Routes are already bound by another handler binder: "
+                            + "the Router is static, so a single RouterHandlerMapping can load routes at a time");
+                }
+                if (binder != handlerBinder) {
+                    loadedFiles = null;
+                }
+                handlerBinder = binder;
+            }
+        }
+    }
+
+    /**
+     * Stop binding routes with the given binder, if it is the current one.
+     */
+    static void releaseHandlerBinder(HandlerBinder binder) {
+        synchronized (loadLock) {
+            synchronized (Router.class) {
+                if (binder == handlerBinder) {
+                    loadedFiles = null;
+                    handlerBinder = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Parse the routes file. This is called at startup, and when route
+     * files change: only the route files changed since the previous load
+     * are parsed again, and unchanged routes are kept along with their
+     * cached resolutions.
+     */
+    public static void load(List<Resource> fileResources) throws IOException {
+        synchronized (loadLock) {
+            List<RouteLoader.RouteFile> previous = loadedFiles;
+            if (previous == null) {
+                patterns = new RoutePatterns(patternEngine);
+            }
+            List<RouteLoader.RouteFile> files = RouteLoader.load(fileResources, previous, parsingParallelism);
+            List<Route> loaded = RouteLoader.routes(files);
+            List<String> unbound = bindHandlers(loaded);
+            if (!unbound.isEmpty()) {
+                throw new RouteFileParsingException("Unresolved actions in route files: " + unbound);
+            }
+            synchronized (Router.class) {
+                loadedFiles = files;
+                publish(loaded, table.registeredRoutes(), true);
+                if (previous != null) {
+                    // drop the patterns of the routes removed or changed
+                    patterns.retainUsedBy(table.routes);
+                }
+            }
+            precompileInBackground(loaded);
+
+            lastLoading = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Load the routes from a snapshot compiled from the given route files,
+     * or parse the route files if that snapshot is missing or stale.
+     *
+     * @param snapshot a snapshot written by {@link RouteSnapshot#compile}, or null
+     * @return true if the routes were loaded from the snapshot
+     * @see RouteSnapshot
+     */
+    public static boolean load(List<Resource> fileResources, Resource snapshot) throws IOException {
+        synchronized (loadLock) {
+            if (snapshot != null && snapshot.exists()) {
+                patterns = new RoutePatterns(patternEngine);
+                List<Route> loaded;
+                InputStream in = snapshot.getInputStream();
+                try {
+                    loaded = RouteSnapshot.read(in, fileResources);
+                } finally {
+                    in.close();
+                }
+                List<String> unbound = (loaded == null) ? null : bindHandlers(loaded);
+                if (unbound != null && !unbound.isEmpty()) {
+                    throw new RouteFileParsingException("Unresolved actions in route files: " + unbound);
+                }
+                if (loaded != null) {
+                    synchronized (Router.class) {
+                        loadedFiles = null;
+                        publish(loaded, table.registeredRoutes(), false);
+                    }
+                    precompileInBackground(loaded);
+                    lastLoading = System.currentTimeMillis();
+                    return true;
+                }
+                logger.info("Route snapshot " + snapshot.getDescription() + " is stale, parsing route files");
+            }
+            load(fileResources);
+            return false;
+        }
+    }
+
+    /**
+     * Compile the patterns of the given routes on a background thread, if
+     * configured to, stopping the thread compiling previously loaded routes.
+     * @see PatternCompilation#BACKGROUND
+     */
+    private static synchronized void precompileInBackground(final List<Route> loaded) {
+        if (precompiler != null) {
+            precompiler.interrupt();
+            precompiler = null;
+        }
+        if (patternCompilation != PatternCompilation.BACKGROUND) {
+            return;
+        }
+        precompiler = new Thread("route-precompiler") {
+            @Override
+            public void run() {
+                long start = System.nanoTime();
+                for (Route route : loaded) {
+                    if (isInterrupted()) {
+                        return;
+                    }
+                    try {
+                        route.precompile();
+                    } catch (RuntimeException e) {
+                        logger.error("Invalid pattern in route " + route + " (" + route.routesFile + ":" + route.routesFileLine + ")", e);
+                    }
+                }
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Compiled the patterns of " + loaded.size() + " routes in "
+                            + (System.nanoTime() - start) / 1000000 + " ms");
+                }
+            }
+        };
+        precompiler.setDaemon(true);
+        precompiler.setPriority(Thread.MIN_PRIORITY);
+        precompiler.start();
+    }
+
+    /**
+     * This one can be called to add new route. Last added is first in the route
+     * list.
+     */
+    public static void prependRoute(String method, String path, String action, String headers) {
+        prependRoute(method, path, action, null, headers);
+    }
+
+    /**
+     * This one can be called to add new route. Last added is first in the route
+     * list.
+     */
+    public static void prependRoute(String method, String path, String action) {
+        prependRoute(method, path, action, null, null);
+    }
+
+    /**
+     * Add a route at the given position
+     */
+    public static void addRoute(int position, String method, String path, String action, String params, String headers) {
+        insertRoute(position, getRoute(method, path, action, params, headers));
+    }
+
+    /**
+     * Add a route at the given position
+     */
+    public static void addRoute(int position, String method, String path, String headers) {
+        addRoute(position, method, path, null, null, headers);
+    }
+
+    /**
+     * Add a route at the given position
+     */
+    public static void addRoute(int position, String method, String path, String action, String headers) {
+        addRoute(position, method, path, action, null, headers);
+    }
+
+    /**
+     * Add a new route. Will be first in the route list
+     */
+    public static void addRoute(String method, String path, String action) {
+        prependRoute(method, path, action);
+    }
+
+    /**
+     * Add a route at the given position
+     */
+    public static void addRoute(String method, String path, String action, String headers) {
+        addRoute(method, path, action, null, headers);
+    }
+
+    /**
+     * Add a route
+     */
+    public static void addRoute(String method, String path, String action, String params, String headers) {
+        appendRoute(method, path, action, params, headers, null, 0);
+    }
+
+    /**
+     * This is used internally when reading the route file. The order the routes
+     * are added matters and we want the method to append the routes to the
+     * list.
+     */
+    public static void appendRoute(String method, String path, String action, String params, String headers, String sourceFile, int line) {
+        insertRoute(Integer.MAX_VALUE, getRoute(method, path, action, params, headers, sourceFile, line));
+    }
+
+    public static Route getRoute(String method, String path, String action, String params, String headers) {
+        return getRoute(method, path, action, params, headers, null, 0);
+    }
+
+    public static Route getRoute(String method, String path, String action, String params, String headers, String sourceFile, int line) {
+        Route route = new Route();
+        route.method = method;
+        route.path = path.replace("//", "/");
+        route.action = action;
+        route.routesFile = sourceFile;
+        route.routesFileLine = line;
+        route.addFormat(headers);
+        route.addParams(params);
+        route.compute();
+        if (logger.isDebugEnabled()) {
+            logger.debug("Adding [" + route.toString() + "] with params [" + params + "] and headers [" + headers + "]");
+        }
+
+        return route;
+    }
+
+    /**
+     * Add a new route at the beginning of the route list
+     */
+    public static void prependRoute(String method, String path, String action, String params, String headers) {
+        insertRoute(0, getRoute(method, path, action, params, headers));
+    }
+
+    public static void detectChanges(List<Resource> fileResources) throws IOException {
+
+        boolean hasChanged = false;
+
+        for (Resource res : fileResources) {
+            if (res.lastModified() > lastLoading) {
+                hasChanged = true;
+                break;
+            }
+        }
+
+        if (hasChanged) {
+            load(fileResources);
+        }
+    }
+
+    /**
+     * The current routes, in declaration order. This list is unmodifiable
+     * (its mutators throw UnsupportedOperationException) and replaced when
+     * routes change: routes are added with the methods of this class.
+     *
+     * @deprecated use {@link #getRoutes()}
+     */
+    @Deprecated
+    public static volatile List<Route> routes = table.routes;
+
+    /**
+     * Returns the current routes, in declaration order: an unmodifiable
+     * list, left untouched when routes change.
+     */
+    public static List<Route> getRoutes() {
+        return table.routes;
+    }
+
+    /**
+     * Start registering, replacing or removing routes at runtime.
+     * @see RouteTransaction
+     */
+    public static RouteTransaction transaction() {
+        return new RouteTransaction();
+    }
+
+    /**
+     * Returns the route registered at runtime with the given id, or null.
+     */
+    public static Route getRegisteredRoute(String id) {
+        RegisteredRoute registered = table.registered.get(id);
+        return (registered == null) ? null : registered.route;
+    }
+
+    /**
+     * Apply the changes of a transaction: only the lookup structures of the
+     * changed routes are rebuilt.
+     */
+    static synchronized void commit(List<RouteTransaction.Change> changes) {
+        RouteTable current = table;
+        if (current.nextPosition > Integer.MAX_VALUE - changes.size()) {
+            // positions of registered routes are compacted on full rebuilds
+            routesChanged();
+            current = table;
+        }
+        Map<String, RegisteredRoute> registered = new LinkedHashMap<String, RegisteredRoute>(current.registered);
+        Set<Route> removed = Collections.newSetFromMap(new IdentityHashMap<Route, Boolean>());
+        List<RegisteredRoute> added = new ArrayList<RegisteredRoute>(changes.size());
+        int nextPosition = current.nextPosition;
+        for (RouteTransaction.Change change : changes) {
+            RegisteredRoute previous = registered.get(change.id);
+            if (change.type == RouteTransaction.ChangeType.ADD) {
+                if (previous != null) {
+                    throw new IllegalArgumentException("A route is already registered with the id " + change.id);
+                }
+                RegisteredRoute route = new RegisteredRoute(change.route, nextPosition++);
+                registered.put(change.id, route);
+                added.add(route);
+                continue;
+            }
+            if (previous == null) {
+                throw new IllegalArgumentException("No route is registered with the id " + change.id);
+            }
+            if (!added.remove(previous)) {
+                removed.add(previous.route);
+            }
+            if (change.type == RouteTransaction.ChangeType.REPLACE) {
+                RegisteredRoute route = new RegisteredRoute(change.route, previous.position);
+                registered.put(change.id, route);
+                added.add(route);
+            } else {
+                registered.remove(change.id);
+            }
+        }
+        List<Route> addedRoutes = new ArrayList<Route>(added.size());
+        for (RegisteredRoute route : added) {
+            addedRoutes.add(route.route);
+        }
+        List<String> unbound = bindHandlers(addedRoutes);
+        if (!unbound.isEmpty()) {
+            throw new IllegalArgumentException("Unresolved actions in registered routes: " + unbound);
+        }
+        Collections.sort(added, new Comparator<RegisteredRoute>() {
+            public int compare(RegisteredRoute route, RegisteredRoute other) {
+                return (route.position < other.position) ? -1 : ((route.position == other.position) ? 0 : 1);
+            }
+        });
+        publish(RouteTable.registering(current, registered, removed, added, nextPosition));
+    }
+
+    /**
+     * Insert a route in the loaded routes: only the lookup structures of
+     * that route are rebuilt, unless there is no position left between its
+     * neighbours.
+     */
+    private static synchronized void insertRoute(int position, Route route) {
+        List<String> unbound = bindHandlers(Collections.singletonList(route));
+        if (!unbound.isEmpty()) {
+            throw new IllegalArgumentException("Unresolved action in route: " + unbound.get(0));
+        }
+        RouteTable current = table;
+        int index = Math.min(position, current.loadedRoutes.size());
+        RouteTable inserted = RouteTable.inserting(current, index, route);
+        if (inserted != null) {
+            publish(inserted);
+            return;
+        }
+        // positions of loaded routes are spread again on full rebuilds
+        List<Route> changed = new ArrayList<Route>(current.loadedRoutes.size() + 1);
+        changed.addAll(current.loadedRoutes);
+        changed.add(index, route);
+        publish(changed, current.registeredRoutes(), true);
+    }
+
+    /**
+     * Bind the given routes to their handlers, if a binder is set; routes
+     * with a dynamic action or already bound are skipped.
+     *
+     * @return the routes whose action has no handler, with their location
+     */
+    private static List<String> bindHandlers(List<Route> routes) {
+        HandlerBinder binder = handlerBinder;
+        if (binder == null) {
+            return Collections.emptyList();
+        }
+        List<String> unbound = new ArrayList<String>();
+        for (Route route : routes) {
+            if (route.actionTemplate != null || route.handler != null) {
+                continue;
+            }
+            try {
+                route.handler = binder.bind(route);
+            } catch (ActionNotFoundException e) {
+                String location = (route.id != null) ? "id " + route.id
+                        : (route.routesFile != null) ? route.routesFile + ":" + route.routesFileLine : "added at runtime";
+                String reason = (e.getCause() != null) ? e.getCause().getMessage() : e.getMessage();
+                unbound.add(route + " (" + location + "): " + reason);
+            }
+        }
+        return unbound;
+    }
+
+    /**
+     * Rebuild the lookup structures of the current routes, dropping the
+     * cached resolutions, after lookup settings have been changed.
+     */
+    private static synchronized void routesChanged() {
+        publish(table.loadedRoutes, table.registeredRoutes(), false);
+    }
+
+    /**
+     * Build a table of the given routes and its lookup structures, then
+     * make it the current one. Requests being resolved keep using the
+     * previous table, and never see a partly built one.
+     *
+     * @param keepCache whether to keep the cached resolutions still valid
+     */
+    private static synchronized void publish(List<Route> loadedRoutes, List<Route> registeredRoutes, boolean keepCache) {
+        publish(new RouteTable(loadedRoutes, registeredRoutes, keepCache ? table : null));
+    }
+
+    private static synchronized void publish(RouteTable built) {
+        table = built;
+        routes = built.routes;
+    }
+
+    /**
+     * Returns the lookup structures built from the current routes.
+     */
+    static RouteIndex index() {
+        return table.index;
+    }
+
+    /**
+     * Find the route matching the given request, resolving the request
+     * action and arguments.
+     *
+     * @throws NoRouteFoundException if no route matches the request
+     * @see #findRoute(HTTPRequestAdapter)
+     */
+    public static Route route(HTTPRequestAdapter request) {
+        Route route = findRoute(request);
+        if (route == null) {
+            throw new NoRouteFoundException(request.method, request.path);
+        }
+        return route;
+    }
+
+    /**
+     * Find the route matching the given request, resolving the request
+     * action and arguments. HEAD requests are also matched against GET
+     * routes, in the same lookup.
+     *
+     * @return the matching route, or null if no route matches the request
+     */
+    public static Route findRoute(HTTPRequestAdapter request) {
+        if (logger.isTraceEnabled()) {
+            logger.trace("Route: " + request.path + " - " + request.querystring);
+        }
+        // request method may be overriden if a x-http-method-override parameter is given
+        if (request.querystring != null && methodOverrideMode == MethodOverrideMode.ENABLED) {
+            String method = methodOverride(request.querystring);
+            if (method != null) {
+                if (logger.isTraceEnabled()) {
+                    logger.trace("request method {} overriden to {}", request.method, method);
+                }
+                request.method = method;
+            }
+        }
+
+        RouteIndex.Match match = index().find(request.method, request.path, request.format, request.host);
+        if (match != null) {
+            Route route = match.route;
+            request.routeArgs = match.args;
+            request.action = route.action;
+            if (match.args.containsKey("format")) {
+                request.setFormat(match.args.get("format"));
+            }
+            if (route.actionTemplate != null) {
+                request.action = route.actionTemplate.expand(match.args);
+            }
+            return route;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the HTTP methods answered by the routes matching the given
+     * request path, e.g. to answer an OPTIONS request no route matches.
+     *
+     * @param accept format, e.g. html, or null
+     * @param host   the request domain, or null
+     * @return the allowed methods, always including OPTIONS, or an empty
+     * list if no route matches the request path
+     */
+    public static List<String> allowedMethods(String path, String accept, String host) {
+        int allowed = index().allowedMethods(path, accept, host);
+        List<String> methods = new ArrayList<String>(Route.METHODS.length);
+        if (allowed != 0) {
+            allowed |= Route.methodMask("OPTIONS");
+            for (int i = 0; i < Route.METHODS.length; i++) {
+                if ((allowed & (1 << i)) != 0) {
+                    methods.add(Route.METHODS[i]);
+                }
+            }
+        }
+        return methods;
+    }
+
+    /**
+     * Returns the method given by the last x-http-method-override parameter
+     * of a query string, or null if there is none. The query string is
+     * scanned once, backwards from its end.
+     */
+    static String methodOverride(String querystring) {
+        int from = querystring.length();
+        while (from >= 0) {
+            int index = querystring.lastIndexOf(METHOD_OVERRIDE_PARAM, from);
+            if (index < 0) {
+                return null;
+            }
+            int start = index + METHOD_OVERRIDE_PARAM.length();
+            for (String method : OVERRIDE_METHODS) {
+                if (querystring.startsWith(method, start)) {
+                    return method;
+                }
+            }
+            from = index - 1;
+        }
+        return null;
+    }
+
+    public static Map<String, String> route(String method, String path) {
+        return route(method, path, null, null);
+    }
+
+    public static Map<String, String> route(String method, String path, String headers) {
+        return route(method, path, headers, null);
+    }
+
+    public static Map<String, String> route(String method, String path, String headers, String host) {
+        RouteIndex.Match match = index().find(method, path, headers, host);
+        if (match != null) {
+            Map<String, String> args = new HashMap<String, String>(match.args);
+            args.put("action", match.route.action);
+            return args;
+        }
+        return new HashMap<String, String>(16);
+    }
+
+    public static ActionDefinition reverse(String action) {
+        // Note the map is not <code>Collections.EMPTY_MAP</code> because it will be copied and changed.
+        return reverse(action, new HashMap<String, Object>(16));
+    }
+
+    public static String getFullUrl(String action, Map<String, Object> args) {
+        return HTTPRequestAdapter.getCurrent().getBase() + reverse(action, args);
+    }
+
+    public static String getFullUrl(String action) {
+        // Note the map is not <code>Collections.EMPTY_MAP</code> because it will be copied and changed.
+        return getFullUrl(action, new HashMap<String, Object>(16));
+    }
+
+    public static Collection<Route> resolveActions(String action) {
+
+        List<Route> candidateRoutes = new ArrayList<Route>(3);
+
+        for (Route route : table.routes) {
+            if (route.actionPattern != null && route.actionPattern.matches(action)) {
+                candidateRoutes.add(route);
+            }
+        }
+
+        return candidateRoutes;
+    }
+
+    public static ActionDefinition reverse(String action, Map<String, Object> args) {
+
+	    HTTPRequestAdapter currentRequest = HTTPRequestAdapter.getCurrent();
+
+        Map<String, Object> argsbackup = new HashMap<String, Object>(args);
+        for (Route route : table.routes) {
+            if (route.actionPattern != null) {
+                RegexMatch match = route.actionPattern.match(action);
+                if (match != null) {
+                    for (String group : route.actionArgs) {
+                        String v = match.group(group);
+                        if (v == null) {
+                            continue;
+                        }
+                        args.put(group, v.toLowerCase());
+                    }
+                    List<String> inPathArgs = new ArrayList<String>(16);
+                    boolean allRequiredArgsAreHere = true;
+                    // les noms de parametres matchent ils ?
+                    for (Route.Arg arg : route.args) {
+                        inPathArgs.add(arg.name);
+                        Object value = args.get(arg.name);
+                        if (value == null) {
+                            // This is a hack for reverting on hostname that are a regex expression.
+                            // See [#344] for more into. This is not optimal and should retough. However,
+                            // it allows us to do things like {(.*)}.domain.com
+                            String host = route.host.replaceAll("\\{", "").replaceAll("\\}", "");
+                            if (host.equals(arg.name) || host.matches(arg.name)) {
+                                args.put(arg.name, "");
+                                value = "";
+                            } else {
+                                allRequiredArgsAreHere = false;
+                                break;
+                            }
+                        } else {
+                            if (value instanceof List<?>) {
+                                @SuppressWarnings("unchecked")
+                                List<Object> l = (List<Object>) value;
+                                value = l.get(0);
+                            }
+                            if (!value.toString().startsWith(":") && !arg.constraint.matches(value.toString())) {
+                                allRequiredArgsAreHere = false;
+                                break;
+                            }
+                        }
+                    }
+                    // les parametres codes en dur dans la route matchent-ils ?
+                    for (String staticKey : route.staticArgs.keySet()) {
+                        if (staticKey.equals("format")) {
+                            if (!currentRequest.format.equals(route.staticArgs.get("format"))) {
+                                allRequiredArgsAreHere = false;
+                                break;
+                            }
+                            continue; // format is a special key
+                        }
+                        if (!args.containsKey(staticKey) || (args.get(staticKey) == null)
+                                || !args.get(staticKey).toString().equals(route.staticArgs.get(staticKey))) {
+                            allRequiredArgsAreHere = false;
+                            break;
+                        }
+                    }
+                    if (allRequiredArgsAreHere) {
+                        StringBuilder queryString = new StringBuilder();
+                        String path = route.path;
+                        //add contextPath and servletPath if set in the current request
+                        if( currentRequest != null) {
+
+                            if(!currentRequest.servletPath.isEmpty() && !currentRequest.servletPath.equals("/")) {
+                            	String servletPath = currentRequest.servletPath;
+                                path = (servletPath.startsWith("/") ?  servletPath : "/" + servletPath) + path;
+                            }
+                            if(!currentRequest.contextPath.isEmpty() && !currentRequest.contextPath.equals("/")) {
+                            	String contextPath = currentRequest.contextPath; 
+                                path = (contextPath.startsWith("/") ? contextPath : "/" + contextPath) + path;
+                            }
+                        }
+                        String host = route.host;
+                        if (path.endsWith("/?")) {
+                            path = path.substring(0, path.length() - 2);
+                        }
+                        for (Map.Entry<String, Object> entry : args.entrySet()) {
+                            String key = entry.getKey();
+                            Object value = entry.getValue();
+                            if (inPathArgs.contains(key) && value != null) {
+                                if (List.class.isAssignableFrom(value.getClass())) {
+                                    @SuppressWarnings("unchecked")
+                                    List<Object> vals = (List<Object>) value;
+                                    try {
+                                        path = path.replaceAll("\\{(<[^>]+>)?" + key + "\\}", URLEncoder.encode(vals.get(0).toString().replace("$", "\\$"), "utf-8"));
+                                    } catch (UnsupportedEncodingException e) {
+                                        throw new RouteFileParsingException("RouteFile encoding exception", e);
+                                    }
+                                } else {
+                                    try {
+                                        path = path.replaceAll("\\{(<[^>]+>)?" + key + "\\}", URLEncoder.encode(value.toString().replace("$", "\\$"), "utf-8"));
+                                        host = host.replaceAll("\\{(<[^>]+>)?" + key + "\\}", URLEncoder.encode(value.toString().replace("$", "\\$"), "utf-8"));
+                                    } catch (UnsupportedEncodingException e) {
+                                        throw new RouteFileParsingException("RouteFile encoding exception", e);
+                                    }
+                                }
+                            } else if (route.staticArgs.containsKey(key)) {
+                                // Do nothing -> The key is static
+                            } else if (value != null) {
+                                if (List.class.isAssignableFrom(value.getClass())) {
+                                    @SuppressWarnings("unchecked")
+                                    List<Object> vals = (List<Object>) value;
+                                    for (Object object : vals) {
+                                        try {
+                                            queryString.append(URLEncoder.encode(key, "utf-8"));
+                                            queryString.append("=");
+                                            if (object.toString().startsWith(":")) {
+                                                queryString.append(object.toString());
+                                            } else {
+                                                queryString.append(URLEncoder.encode(object.toString() + "", "utf-8"));
+                                            }
+                                            queryString.append("&");
+                                        } catch (UnsupportedEncodingException ex) {
+                                        }
+                                    }
+//                                } else if (value.getClass().equals(Default.class)) {
+//                                    // Skip defaults in queryString
+                                } else {
+                                    try {
+                                        queryString.append(URLEncoder.encode(key, "utf-8"));
+                                        queryString.append("=");
+                                        if (value.toString().startsWith(":")) {
+                                            queryString.append(value.toString());
+                                        } else {
+                                            queryString.append(URLEncoder.encode(value.toString() + "", "utf-8"));
+                                        }
+                                        queryString.append("&");
+                                    } catch (UnsupportedEncodingException ex) {
+                                    }
+                                }
+                            }
+                        }
+                        String qs = queryString.toString();
+                        if (qs.endsWith("&")) {
+                            qs = qs.substring(0, qs.length() - 1);
+                        }
+                        ActionDefinition actionDefinition = new ActionDefinition();
+                        actionDefinition.url = qs.length() == 0 ? path : path + "?" + qs;
+                        actionDefinition.method = route.method == null || route.method.equals("*") ? "GET" : route.method.toUpperCase();
+                        actionDefinition.star = "*".equals(route.method);
+                        actionDefinition.action = action;
+                        actionDefinition.args = argsbackup;
+                        actionDefinition.host = host;
+                        return actionDefinition;
+                    }
+                }
+            }
+        }
+        throw new NoHandlerFoundException(action, args);
+    }
+
+    private static void addToQuerystring(StringBuilder queryString, String key, Object value) {
+        if (List.class.isAssignableFrom(value.getClass())) {
+            @SuppressWarnings("unchecked")
+            List<Object> vals = (List<Object>) value;
+            for (Object object : vals) {
+                try {
+                    queryString.append(URLEncoder.encode(key, "utf-8"));
+                    queryString.append("=");
+                    if (object.toString().startsWith(":")) {
+                        queryString.append(object.toString());
+                    } else {
+                        queryString.append(URLEncoder.encode(object.toString() + "", "utf-8"));
+                    }
+                    queryString.append("&");
+                } catch (UnsupportedEncodingException ex) {
+                }
+            }
+//        } else if (value.getClass().equals(Default.class)) {
+//            // Skip defaults in queryString
+        } else {
+            try {
+                queryString.append(URLEncoder.encode(key, "utf-8"));
+                queryString.append("=");
+                if (value.toString().startsWith(":")) {
+                    queryString.append(value.toString());
+                } else {
+                    queryString.append(URLEncoder.encode(value.toString() + "", "utf-8"));
+                }
+                queryString.append("&");
+            } catch (UnsupportedEncodingException ex) {
+            }
+        }
+    }
+
+    /**
+     * Routes and the lookup structures built from them with the current
+     * lookup settings. Never changed once built.
+     *
+     * <p>Routes are indexed by position. Loaded routes get positions spread
+     * {@link #POSITION_GAP} apart below {@link #REGISTERED_POSITIONS}, and
+     * registered routes get positions from there. Routes can then be added
+     * between others by deriving a table that only indexes them, until no
+     * position is left between their neighbours.
+     */
+    private static final class RouteTable {
+
+        private static final int POSITION_GAP = 1024;
+        /**
+         * The positions of loaded routes are in
+         * [-REGISTERED_POSITIONS, REGISTERED_POSITIONS[.
+         */
+        private static final int REGISTERED_POSITIONS = 1 << 30;
+
+        /**
+         * All the routes, in declaration order: the loaded routes, then the
+         * registered routes.
+         */
+        final List<Route> routes;
+        /**
+         * The routes loaded from route files or added by position.
+         */
+        final List<Route> loadedRoutes;
+        /**
+         * The positions of the {@link #loadedRoutes}, in ascending order.
+         */
+        final int[] loadedPositions;
+        /**
+         * The routes registered at runtime by id, in declaration order.
+         */
+        final Map<String, RegisteredRoute> registered;
+        /**
+         * The position given to the next registered route: the positions of
+         * registered routes are kept when registered routes change.
+         */
+        final int nextPosition;
+        final RouteIndex index;
+        final RouteCache cache;
+
+        /**
+         * @param previous the table replaced by this one, whose cached
+         *                 resolutions still valid are kept, or null
+         */
+        RouteTable(List<Route> loadedRoutes, List<Route> registeredRoutes, RouteTable previous) {
+            this.loadedRoutes = Collections.unmodifiableList(new ArrayList<Route>(loadedRoutes));
+            List<Route> all = new ArrayList<Route>(loadedRoutes.size() + registeredRoutes.size());
+            all.addAll(loadedRoutes);
+            all.addAll(registeredRoutes);
+            this.routes = Collections.unmodifiableList(all);
+            int[] positions = new int[all.size()];
+            int gap = Math.max(1, Math.min(POSITION_GAP, REGISTERED_POSITIONS / Math.max(1, loadedRoutes.size())));
+            for (int i = 0; i < loadedRoutes.size(); i++) {
+                positions[i] = i * gap;
+            }
+            this.loadedPositions = Arrays.copyOf(positions, loadedRoutes.size());
+            Map<String, RegisteredRoute> byId = new LinkedHashMap<String, RegisteredRoute>();
+            int position = REGISTERED_POSITIONS;
+            for (Route route : registeredRoutes) {
+                positions[loadedRoutes.size() + byId.size()] = position;
+                byId.put(route.id, new RegisteredRoute(route, position++));
+            }
+            this.registered = Collections.unmodifiableMap(byId);
+            this.nextPosition = position;
+            this.cache = newCache();
+            if (cache != null && previous != null && previous.cache != null) {
+                cache.copyValid(previous.cache, previous.routes, this.routes, positions, patternEngine);
+            }
+            this.index = new RouteIndex(this.routes, positions, lookupStrategy, patternEngine, cache,
+                    adaptiveOrdering ? orderingStatistics : null);
+        }
+
+        /**
+         * Derive a table from the previous one: only the removed and added
+         * routes are indexed.
+         *
+         * @param removed        the routes of the previous table that are
+         *                       gone, compared by identity
+         * @param addedRoutes    the added routes, in declaration order
+         * @param addedPositions the positions of the added routes
+         */
+        private RouteTable(RouteTable previous, List<Route> loadedRoutes, int[] loadedPositions,
+                           Map<String, RegisteredRoute> registered, int nextPosition, Set<Route> removed,
+                           List<Route> addedRoutes, int[] addedPositions) {
+            this.loadedRoutes = loadedRoutes;
+            this.loadedPositions = loadedPositions;
+            this.registered = registered;
+            List<Route> all = new ArrayList<Route>(loadedRoutes.size() + registered.size());
+            all.addAll(loadedRoutes);
+            for (RegisteredRoute route : registered.values()) {
+                all.add(route.route);
+            }
+            this.routes = Collections.unmodifiableList(all);
+            this.nextPosition = nextPosition;
+            this.cache = newCache();
+            if (cache != null && previous.cache != null) {
+                cache.copyValid(previous.cache, removed, addedRoutes, patternEngine);
+            }
+            this.index = previous.index.update(removed, addedRoutes, addedPositions, cache);
+        }
+
+        /**
+         * Derive a table from the previous one, with other registered
+         * routes.
+         *
+         * @param removed the registered routes of the previous table that
+         *                are gone, compared by identity
+         * @param added   the routes registered since, by position
+         */
+        static RouteTable registering(RouteTable previous, Map<String, RegisteredRoute> registered,
+                                      Set<Route> removed, List<RegisteredRoute> added, int nextPosition) {
+            List<Route> addedRoutes = new ArrayList<Route>(added.size());
+            int[] addedPositions = new int[added.size()];
+            for (RegisteredRoute route : added) {
+                addedPositions[addedRoutes.size()] = route.position;
+                addedRoutes.add(route.route);
+            }
+            return new RouteTable(previous, previous.loadedRoutes, previous.loadedPositions,
+                    Collections.unmodifiableMap(registered), nextPosition, removed, addedRoutes, addedPositions);
+        }
+
+        /**
+         * Derive a table from the previous one, with a route inserted in the
+         * loaded routes.
+         *
+         * @param index the index of the route in the loaded routes
+         * @return the derived table, or null if there is no position left
+         * between the routes around that index
+         */
+        static RouteTable inserting(RouteTable previous, int index, Route route) {
+            List<Route> loaded = new ArrayList<Route>(previous.loadedRoutes.size() + 1);
+            loaded.addAll(previous.loadedRoutes);
+            loaded.add(index, route);
+            int[] positions = previous.loadedPositions;
+            long lower = (index == 0) ? -REGISTERED_POSITIONS - 1L : positions[index - 1];
+            long upper = (index == positions.length) ? REGISTERED_POSITIONS : positions[index];
+            long position;
+            if (index == positions.length) {
+                position = (index == 0) ? 0 : lower + POSITION_GAP;
+            } else if (index == 0) {
+                position = upper - POSITION_GAP;
+            } else {
+                position = lower + (upper - lower) / 2;
+            }
+            if (position <= lower || position >= upper) {
+                position = lower + (upper - lower) / 2;
+                if (position <= lower) {
+                    return null;
+                }
+            }
+            int[] loadedPositions = new int[positions.length + 1];
+            System.arraycopy(positions, 0, loadedPositions, 0, index);
+            loadedPositions[index] = (int) position;
+            System.arraycopy(positions, index, loadedPositions, index + 1, positions.length - index);
+            Set<Route> removed = Collections.emptySet();
+            return new RouteTable(previous, Collections.unmodifiableList(loaded), loadedPositions,
+                    previous.registered, previous.nextPosition, removed, Collections.singletonList(route),
+                    new int[]{(int) position});
+        }
+
+        private static RouteCache newCache() {
+            return (cacheMaxEntries > 0 || cacheMaxMisses > 0)
+                    ? new RouteCache(cacheMaxEntries, cacheMaxMemory, cacheMaxMisses, cacheStatistics) : null;
+        }
+
+        List<Route> registeredRoutes() {
+            return routes.subList(loadedRoutes.size(), routes.size());
+        }
+    }
+
+    /**
+     * A route registered at runtime, and its position in the route list.
+     */
+    private static final class RegisteredRoute {
+
+        final Route route;
+        final int position;
+
+        RegisteredRoute(Route route, int position) {
+            this.route = route;
+            this.position = position;
+        }
+    }
+
+    public static class ActionDefinition {
+
+        /**
+         * The domain/host name.
+         */
+        public String host;
+        /**
+         * The HTTP method, e.g. "GET".
+         */
+        public String method;
+        /**
+         * @todo - what is this? does it include the domain?
+         */
+        public String url;
+        /**
+         * Whether the route contains an astericks *.
+         */
+        public boolean star;
+        /**
+         * @todo - what is this? does it include the class and package?
+         */
+        public String action;
+        /**
+         * @todo - are these the required args in the routing file, or the query
+         * string in a request?
+         */
+        public Map<String, Object> args;
+
+        public ActionDefinition add(String key, Object value) {
+            args.put(key, value);
+            return reverse(action, args);
+        }
+
+        public ActionDefinition remove(String key) {
+            args.remove(key);
+            return reverse(action, args);
+        }
+
+        public ActionDefinition addRef(String fragment) {
+            url += "#" + fragment;
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return url;
+        }
+
+        public void absolute() {
+	        HTTPRequestAdapter currentRequest = HTTPRequestAdapter.getCurrent();
+            if (!url.startsWith("http")) {
+                if (host == null || host.isEmpty()) {
+                    url = currentRequest.getBase() + url;
+                } else {
+                    url = (currentRequest.secure ? "https://" : "http://") + host + url;
+                }
+            }
+        }
+
+        public ActionDefinition secure() {
+            if (!url.contains("http://") && !url.contains("https://")) {
+                absolute();
+            }
+            url = url.replace("http:", "https:");
+            return this;
+        }
+    }
+
+    public static class Route {
+
+        public String getAction() {
+            return action;
+        }
+
+        public String getHost() {
+            return host;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public List<Arg> getArgs() {
+            return args;
+        }
+
+        public Map<String, String> getStaticArgs() {
+            return staticArgs;
+        }
+
+        /**
+         * Returns the compiled action, or null if the action has no
+         * <code>{arg}</code> placeholder.
+         */
+        public ActionTemplate getActionTemplate() {
+            return actionTemplate;
+        }
+
+        /**
+         * Returns the handler of the static action of this route, bound
+         * when the route was loaded, or null if the action is dynamic or no
+         * {@link HandlerBinder} was set.
+         */
+        public HandlerMethod getHandler() {
+            return handler;
+        }
+
+
+
+        /**
+         * HTTP methods known to the router, in method bitmask order.
+         */
+        static final String[] METHODS = {"GET", "POST", "PUT", "DELETE", "PATCH", "OPTIONS", "HEAD"};
+        static final int GET = 1;
+        static final int HEAD = 1 << 6;
+        static final int ALL_METHODS = (1 << METHODS.length) - 1;
+
+        /**
+         * HTTP method, e.g. "GET".
+         */
+        public String method;
+        /**
+         * Bitmask of the {@link #METHODS} this route answers to.
+         */
+        int methodMask;
+        public String path;
+        public String action;
+        RegexPattern actionPattern;
+        ActionTemplate actionTemplate;
+        /**
+         * Bound before the route is published, hence read without
+         * synchronization.
+         */
+        HandlerMethod handler;
+        List<String> actionArgs = new ArrayList<String>(3);
+        RegexPattern pattern;
+        RegexPattern hostPattern;
+        List<Arg> args = new ArrayList<Arg>(3);
+        Map<String, String> staticArgs = new HashMap<String, String>(3);
+        List<String> formats = new ArrayList<String>(1);
+        String host;
+        /**
+         * The route host when it is a plain domain name, e.g. "example.org".
+         */
+        String exactHost;
+        /**
+         * The route host after its placeholder when the host starts with
+         * one, e.g. ".example.org" for "{client}.example.org".
+         */
+        String hostSuffix;
+        Arg hostArg = null;
+        /**
+         * Names and sources of the arguments of this route.
+         */
+        RouteArgs.Layout argsLayout;
+        /**
+         * Names of the path arguments, in declaration order.
+         */
+        String[] pathArgNames;
+        /**
+         * Number of the pattern group of each path argument, resolved on
+         * first match as it needs the compiled pattern.
+         */
+        private volatile int[] pathArgGroups;
+        /**
+         * The arguments of this route, if it has no path or host arguments.
+         */
+        private RouteArgs constantArgs;
+        public int routesFileLine;
+        public String routesFile;
+        /**
+         * The id of a route registered at runtime, null otherwise.
+         */
+        String id;
+        static Pattern customRegexPattern = new Pattern("\\{([a-zA-Z_0-9]+)\\}");
+        static Pattern argsPattern = new Pattern("\\{<([^>]+)>([a-zA-Z_0-9]+)\\}");
+        static Pattern paramPattern = new Pattern("\\s*([a-zA-Z_0-9]+)\\s*:\\s*'(.*)'\\s*");
+
+        /**
+         * Returns the index of the given HTTP method in {@link #METHODS},
+         * or -1 if that method is unknown (or null).
+         */
+        static int methodIndex(String method) {
+            if (method != null) {
+                for (int i = 0; i < METHODS.length; i++) {
+                    if (METHODS[i].equalsIgnoreCase(method)) {
+                        return i;
+                    }
+                }
+            }
+            return -1;
+        }
+
+        static int methodMask(String method) {
+            if ("*".equals(method)) {
+                return ALL_METHODS;
+            }
+            int index = methodIndex(method);
+            if (index < 0) {
+                return 0;
+            }
+            int mask = 1 << index;
+            // HEAD requests are also answered by GET routes
+            return (mask == GET) ? GET | HEAD : mask;
+        }
+
+        public void compute() {
+            this.methodMask = methodMask(method);
+            this.host = "";
+            this.exactHost = null;
+            this.hostSuffix = null;
+            this.hostPattern = compilePattern(".*", false);
+
+
+            // URL pattern
+            // Is there is a host argument, append it.
+            if (!path.startsWith("/")) {
+                String p = this.path;
+                this.path = p.substring(p.indexOf("/"));
+                this.host = p.substring(0, p.indexOf("/"));
+                String pattern = host.replaceAll("\\.", "\\\\.").replaceAll("\\{.*\\}", "(.*)");
+
+                if (logger.isTraceEnabled()) {
+                    logger.trace("pattern [" + pattern + "]");
+                    logger.trace("host [" + host + "]");
+                }
+
+                this.hostPattern = compilePattern(pattern, false);
+                // the host placeholder spans from its first "{" to its last "}"
+                int open = host.indexOf('{');
+                int close = host.lastIndexOf('}');
+
+                if (open >= 0 && close > open) {
+                    String name = host.substring(open, close + 1).replace("{", "").replace("}", "");
+                    if (logger.isTraceEnabled()) {
+                        logger.trace("hostArg name [" + name + "]");
+                    }
+                    // The default value contains the route version of the host ie {client}.bla.com
+                    // It is temporary and it indicates it is an url route.
+                    // TODO Check that default value is actually used for other cases.
+                    hostArg = routeArg(name, compilePattern(".*", false), host);
+
+                    if (logger.isTraceEnabled()) {
+                        logger.trace("adding hostArg [" + hostArg + "]");
+                    }
+
+                    args.add(hostArg);
+                }
+                if (RouteTrie.isLiteral(host.replace(".", ""))) {
+                    this.exactHost = host;
+                } else if (host.startsWith("{") && RouteTrie.isLiteral(host.substring(host.lastIndexOf('}') + 1).replace(".", ""))) {
+                    this.hostSuffix = host.substring(host.lastIndexOf('}') + 1);
+                }
+            }
+            String patternString = path;
+            patternString = customRegexPattern.replacer("\\{<[^/]+>$1\\}").replace(patternString);
+            Matcher matcher = argsPattern.matcher(patternString);
+            while (matcher.find()) {
+                args.add(routeArg(matcher.group(2), compilePattern(matcher.group(1), false), null));
+            }
+
+            patternString = argsPattern.replacer("({$2}$1)").replace(patternString);
+            this.pattern = compilePattern(patternString, false);
+            // Action pattern
+            patternString = action;
+            patternString = patternString.replace(".", "[.]");
+            for (Arg arg : args) {
+                if (patternString.contains("{" + arg.name + "}")) {
+                    patternString = patternString.replace("{" + arg.name + "}", "({" + arg.name + "}" + arg.constraint.toString() + ")");
+                    actionArgs.add(arg.name);
+                }
+            }
+            actionPattern = compilePattern(patternString, true);
+            actionTemplate = ActionTemplate.compile(action);
+            computeLayout();
+        }
+
+        /**
+         * Compute how the arguments of this route are read from its path
+         * pattern, once its patterns and args are set.
+         */
+        void computeLayout() {
+            List<String> pathArgNames = new ArrayList<String>(args.size());
+            for (Arg arg : args) {
+                // Args with a default value are the hostname ones
+                if (arg.defaultValue == null) {
+                    pathArgNames.add(arg.name);
+                }
+            }
+            this.pathArgNames = pathArgNames.toArray(new String[pathArgNames.size()]);
+            this.pathArgGroups = null;
+            argsLayout = new RouteArgs.Layout(pathArgNames, (hostArg == null) ? null : hostArg.name, staticArgs);
+            constantArgs = new RouteArgs(argsLayout, "", RouteArgs.NO_BOUNDS, null);
+        }
+
+        public void addParams(String params) {
+            if (params == null || params.length() < 1) {
+                return;
+            }
+            params = params.substring(1, params.length() - 1);
+            for (String param : params.split(",")) {
+                Matcher matcher = paramPattern.matcher(param);
+                if (matcher.matches()) {
+                    staticArgs.put(matcher.group(1), matcher.group(2));
+                } else {
+                    logger.warn("Ignoring " + param + " (static params must be specified as key:'value',...)");
+                }
+            }
+        }
+
+        // TODO: Add args names
+        public void addFormat(String params) {
+            if (params == null || params.length() < 1) {
+                return;
+            }
+            params = params.trim();
+            for (String format : params.split(",")) {
+                formats.add(format);
+            }
+        }
+
+        /**
+         * Check if this Route answers to the given request format.
+         *
+         * @param accept     format, e.g. html, or null to accept any format
+         * @param acceptMask the mask of that format, see
+         *                   {@link RouteFormats#mask(String)}
+         * @param formatMask the mask of the formats of this route in the same
+         *                   registry, see {@link RouteFormats#mask(Route)}
+         */
+        boolean acceptsFormat(String accept, long acceptMask, long formatMask) {
+            if (accept == null || formats.isEmpty() || (formatMask & acceptMask) != 0) {
+                return true;
+            }
+            return formatMask == 0 && contains(accept);
+        }
+
+        private boolean contains(String accept) {
+            boolean contains = (accept == null);
+            if (accept != null) {
+                if (this.formats.isEmpty()) {
+                    return true;
+                }
+                for (String format : this.formats) {
+                    contains = format.startsWith(accept);
+                    if (contains) {
+                        break;
+                    }
+                }
+            }
+            return contains;
+        }
+
+        public Map<String, String> matches(String method, String path) {
+            return matches(method, path, null, null);
+        }
+
+        /**
+         * Check if the parts of a HTTP request equal this static Route (see
+         * {@link RouteIndex#isStatic(Route)}), the request method and host
+         * and format being already accepted and the request path equal to the
+         * route path.
+         */
+        Map<String, String> matchesStaticPath() {
+            return constantArgs;
+        }
+
+        public Map<String, String> matches(String method, String path, String accept) {
+            return matches(method, path, accept, null);
+        }
+
+        /**
+         * Check if the parts of a HTTP request equal this Route.
+         *
+         * @param method GET/POST/etc.
+         * @param path   Part after domain and before query-string. Starts with a
+         *               "/".
+         * @param accept Format, e.g. html.
+         * @param domain the domain.
+         * @return ???
+         */
+        public Map<String, String> matches(String method, String path, String accept, String domain) {
+            if (accepts(method) && contains(accept)) {
+                return matchesPath(path, domain);
+            }
+            return null;
+        }
+
+        /**
+         * Check if this Route answers to the given HTTP method.
+         *
+         * @param method GET/POST/etc, or null to accept any method
+         */
+        boolean accepts(String method) {
+            // If method is HEAD and we have a GET
+            return method == null || this.method.equals("*") || method.equalsIgnoreCase(this.method) || (method.equalsIgnoreCase("head") && ("get").equalsIgnoreCase(this.method));
+        }
+
+        /**
+         * Check if the parts of a HTTP request equal this Route, the request
+         * method and format being already known to be accepted by this Route.
+         */
+        Map<String, String> matchesPath(String path, String domain) {
+            RegexMatch match = pattern.match(path);
+
+            if (match != null) {
+                String hostValue = hostValue(domain);
+                if (domain != null && hostValue == null) {
+                    return null;
+                }
+                if (pathArgNames.length == 0 && hostArg == null) {
+                    return constantArgs;
+                }
+                int[] pathArgGroups = pathArgGroups();
+                int[] bounds = new int[2 * pathArgGroups.length];
+                for (int i = 0; i < pathArgGroups.length; i++) {
+                    int group = pathArgGroups[i];
+                    bounds[2 * i] = (group < 0) ? -1 : match.start(group);
+                    bounds[2 * i + 1] = (group < 0) ? -1 : match.end(group);
+                }
+                return new RouteArgs(argsLayout, path, bounds, hostValue);
+            }
+            return null;
+        }
+
+        /**
+         * Check if the parts of a HTTP request equal this Route, the request
+         * method and format being already accepted and the request path known
+         * to match this Route pattern.
+         *
+         * @param bounds start and end offsets in the path of each path
+         *               argument value, in declaration order (-1 if the
+         *               argument didn't participate in the match)
+         */
+        Map<String, String> matchesGroups(String path, int[] bounds, String domain) {
+            String hostValue = hostValue(domain);
+            if (domain != null && hostValue == null) {
+                return null;
+            }
+            if (pathArgNames.length == 0 && hostArg == null) {
+                return constantArgs;
+            }
+            return new RouteArgs(argsLayout, path, bounds, hostValue);
+        }
+
+        private int[] pathArgGroups() {
+            int[] groups = pathArgGroups;
+            if (groups == null) {
+                groups = new int[pathArgNames.length];
+                for (int i = 0; i < groups.length; i++) {
+                    groups[i] = pattern.groupIndex(pathArgNames[i]);
+                }
+                pathArgGroups = groups;
+            }
+            return groups;
+        }
+
+        /**
+         * Compile the patterns of this route not compiled yet.
+         *
+         * @see PatternCompilation#BACKGROUND
+         */
+        void precompile() {
+            precompile(pattern);
+            precompile(hostPattern);
+            precompile(actionPattern);
+            for (Arg arg : args) {
+                precompile(arg.constraint);
+            }
+            pathArgGroups();
+        }
+
+        private static void precompile(RegexPattern pattern) {
+            if (pattern instanceof LazyRegexPattern) {
+                ((LazyRegexPattern) pattern).compiled();
+            }
+        }
+
+        /**
+         * Match the given domain against this route host.
+         *
+         * @return the part of the domain matched by the host placeholder (or
+         * the whole domain if the host has no placeholder), or null if the
+         * domain is null or doesn't match this route host
+         */
+        String hostValue(String domain) {
+            if (domain == null || host.length() == 0) {
+                return domain;
+            }
+            if (exactHost != null) {
+                return exactHost.equals(domain) ? domain : null;
+            }
+            if (hostSuffix != null) {
+                return domain.endsWith(hostSuffix) ? domain.substring(0, domain.length() - hostSuffix.length()) : null;
+            }
+            RegexMatch match = hostPattern.match(domain);
+            if (match == null) {
+                return null;
+            }
+            return (hostArg != null) ? match.group(1) : domain;
+        }
+
+        public static class Arg {
+
+            String name;
+            RegexPattern constraint;
+            String defaultValue;
+            Boolean optional = false;
+
+            public String getName() {
+                return name;
+            }
+
+            public String getDefaultValue() {
+                return defaultValue;
+            }
+        }
+
+        /**
+         * Returns the id of this route if it was registered at runtime, or
+         * null.
+         * @see Router#transaction()
+         */
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public String toString() {
+            return method + " " + path + " -> " + action;
+        }
+    }
+
+    /**
+     * Resolves the handlers of the static actions of routes, when routes
+     * are loaded or added.
+     * @see #setHandlerBinder(HandlerBinder)
+     */
+    public interface HandlerBinder {
+
+        /**
+         * Returns the handler of the static action of the given route.
+         *
+         * @throws ActionNotFoundException if no handler matches that action
+         */
+        HandlerMethod bind(Route route) throws ActionNotFoundException;
+    }
+}
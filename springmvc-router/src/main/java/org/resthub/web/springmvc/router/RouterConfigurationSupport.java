@@ -0,0 +1,219 @@
+package org.resthub.web.springmvc.router;
+
+import org.resthub.web.springmvc.router.regex.RegexEngine;
+import org.springframework.context.annotation.Bean;
+import org.springframework.web.servlet.config.annotation.DelegatingWebMvcConfiguration;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurationSupport;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.util.List;
+
+
+/**
+ * This class provides MVC Java config support for the {@link RouterHandlerMapping},
+ * on top of the existing {@link WebMvcConfigurationSupport}.
+ *
+ * Unlike {@link WebMvcConfigurationSupport}, you SHOULD NOT import it using
+ * {@link org.springframework.web.servlet.config.annotation.EnableWebMvc @EnableWebMvc} within an application
+ * {@link org.springframework.context.annotation.Configuration @Configuration} class.
+ *
+ * Extending this class and adding {@link org.springframework.context.annotation.Configuration @Configuration}
+ * is enough. You should also implement the configureRouteFiles method to add the list of route
+ * configuration files.
+ *
+ * You can then instantiate your own beans and override {@link WebMvcConfigurationSupport} methods.
+ *
+ * <p>This class registers the following {@link org.springframework.web.servlet.HandlerMapping}s:</p>
+ * <ul>
+ *  <li>{@link RouterHandlerMapping}
+ *  ordered at 0 for mapping requests to annotated controller methods.
+ * 	<li>{@link org.springframework.web.servlet.HandlerMapping}
+ * 	ordered at 1 to map URL paths directly to view names.
+ * 	<li>{@link org.springframework.web.servlet.handler.BeanNameUrlHandlerMapping}
+ * 	ordered at 2 to map URL paths to controller bean names.
+ * 	<li>{@link RequestMappingHandlerMapping}
+ * 	ordered at 3 for mapping requests to annotated controller methods.
+ * 	<li>{@link org.springframework.web.servlet.HandlerMapping}
+ * 	ordered at {@code Integer.MAX_VALUE-1} to serve static resource requests.
+ * 	<li>{@link org.springframework.web.servlet.HandlerMapping}
+ * 	ordered at {@code Integer.MAX_VALUE} to forward requests to the default servlet.
+ * </ul>
+ *
+ * @see WebMvcConfigurationSupport
+ *
+ * @author Brian Clozel
+ */
+public abstract class RouterConfigurationSupport extends DelegatingWebMvcConfiguration {
+
+    /**
+     * Return a {@link RouterHandlerMapping} ordered at 0 for mapping
+     * requests to controllers' actions mapped by routes.
+     */
+    @Bean
+    public RouterHandlerMapping createRouterHandlerMapping() {
+
+        RouterHandlerMapping handlerMapping = new RouterHandlerMapping();
+        handlerMapping.setRouteFiles(listRouteFiles());
+        handlerMapping.setAutoReloadEnabled(isHandlerMappingReloadEnabled());
+        handlerMapping.setAutoReloadInterval(getHandlerMappingReloadInterval());
+        handlerMapping.setLookupStrategy(getRouteLookupStrategy());
+        handlerMapping.setPatternEngine(getRoutePatternEngine());
+        handlerMapping.setCacheMaxEntries(getRouteCacheMaxEntries());
+        handlerMapping.setCacheMaxMemory(getRouteCacheMaxMemory());
+        handlerMapping.setCacheMaxMisses(getRouteCacheMaxMisses());
+        handlerMapping.setAdaptiveOrdering(isRouteAdaptiveOrderingEnabled());
+        handlerMapping.setOptionsAnswerEnabled(isRouteOptionsAnswerEnabled());
+        handlerMapping.setMethodOverrideMode(getMethodOverrideMode());
+        handlerMapping.setParsingParallelism(getRouteParsingParallelism());
+        handlerMapping.setPatternCompilation(getRoutePatternCompilation());
+        handlerMapping.setRouteSnapshot(getRouteSnapshot());
+        handlerMapping.setInterceptors(getInterceptors());
+        handlerMapping.setOrder(0);
+        return handlerMapping;
+    }
+
+    /**
+     * By default, route configuration files auto-reload is not enabled.
+     * You can override this method to enable this feature.
+     * @see RouterHandlerMapping
+     */
+    protected boolean isHandlerMappingReloadEnabled() {
+        return false;
+    }
+
+    /**
+     * By default, route files are checked for changes every second when
+     * auto-reloading.
+     * You can override this method to change that delay, in milliseconds.
+     * @see RouterHandlerMapping#setAutoReloadInterval(long)
+     */
+    protected long getHandlerMappingReloadInterval() {
+        return 1000;
+    }
+
+    /**
+     * By default, routes are looked up by scanning the whole route list.
+     * You can override this method to choose another strategy.
+     * @see RouteLookupStrategy
+     */
+    protected RouteLookupStrategy getRouteLookupStrategy() {
+        return RouteLookupStrategy.SCAN;
+    }
+
+    /**
+     * By default, routes are compiled with the engine currently used by the
+     * Router (jregex unless changed).
+     * You can override this method to choose another engine.
+     * @see RegexEngine
+     */
+    protected RegexEngine getRoutePatternEngine() {
+        return null;
+    }
+
+    /**
+     * By default, the routes matched by requests are not cached.
+     * You can override this method to cache up to the given number of
+     * resolved requests.
+     */
+    protected int getRouteCacheMaxEntries() {
+        return 0;
+    }
+
+    /**
+     * By default, the route cache is only bounded by its number of entries.
+     * You can override this method to also bound its estimated memory usage,
+     * in bytes.
+     */
+    protected long getRouteCacheMaxMemory() {
+        return 0;
+    }
+
+    /**
+     * By default, requests matching no route are not cached.
+     * You can override this method to cache up to the given number of
+     * unmatched requests.
+     */
+    protected int getRouteCacheMaxMisses() {
+        return 0;
+    }
+
+    /**
+     * By default, routes are scanned in declaration order.
+     * You can override this method to try first the most hit routes, where
+     * that can't change the route matching a request.
+     * @see RouterHandlerMapping#setAdaptiveOrdering(boolean)
+     */
+    protected boolean isRouteAdaptiveOrderingEnabled() {
+        return false;
+    }
+
+    /**
+     * By default, OPTIONS requests no route matches are answered with the
+     * methods of the routes matching the request path.
+     * You can override this method to leave them to other handler mappings.
+     * @see RouterHandlerMapping#setOptionsAnswerEnabled(boolean)
+     */
+    protected boolean isRouteOptionsAnswerEnabled() {
+        return true;
+    }
+
+    /**
+     * By default, requests may override their HTTP method with a header or
+     * a query string parameter.
+     * You can override this method to restrict or disable method overrides.
+     * @see MethodOverrideMode
+     */
+    protected MethodOverrideMode getMethodOverrideMode() {
+        return MethodOverrideMode.ENABLED;
+    }
+
+    /**
+     * By default, route files are parsed one after the other.
+     * You can override this method to parse up to the given number of
+     * route files at once; routes keep their declaration order.
+     */
+    protected int getRouteParsingParallelism() {
+        return 1;
+    }
+
+    /**
+     * By default, route patterns are compiled when routes are loaded.
+     * You can override this method to compile them on first use.
+     * @see PatternCompilation
+     */
+    protected PatternCompilation getRoutePatternCompilation() {
+        return PatternCompilation.EAGER;
+    }
+
+    /**
+     * By default, route files are parsed at startup.
+     * You can override this method to return the location of a snapshot
+     * compiled from the route files at build time, loaded instead while it
+     * matches them.
+     * @see RouteSnapshot
+     */
+    protected String getRouteSnapshot() {
+        return null;
+    }
+
+    /**
+     * Return a {@link RequestMappingHandlerMapping} ordered at 3 for mapping
+     * requests to annotated controllers.
+     */
+    @Bean
+    @Override
+    public RequestMappingHandlerMapping requestMappingHandlerMapping() {
+	    RequestMappingHandlerMapping handlerMapping = new RequestMappingHandlerMapping();
+	    handlerMapping.setOrder(3);
+	    handlerMapping.setInterceptors(getInterceptors());
+	    handlerMapping.setContentNegotiationManager(mvcContentNegotiationManager());
+	    return handlerMapping;
+    }
+
+    /**
+     * Return the ordered list of route configuration files to be loaded
+     * by the Router at startup.
+     */
+    public abstract List<String> listRouteFiles();
+
+}
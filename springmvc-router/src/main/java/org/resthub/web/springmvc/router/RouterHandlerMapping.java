@@ -0,0 +1,433 @@
+package org.resthub.web.springmvc.router;
+
+import org.resthub.web.springmvc.router.exceptions.RouteFileParsingException;
+import org.resthub.web.springmvc.router.regex.RegexEngine;
+import org.resthub.web.springmvc.router.support.RouterHandlerResolver;
+import org.resthub.web.springmvc.router.support.RouterOptionsHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Controller;
+import org.springframework.util.Assert;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.handler.AbstractHandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Implementation of the {@link org.springframework.web.servlet.HandlerMapping}
+ * interface that maps handlers based on HTTP routes defined in a route
+ * configuration file.
+ *
+ * <p> RouterHandlerMapping is not the default HandlerMapping registered in
+ * {@link org.springframework.web.servlet.DispatcherServlet} in SpringMVC. You
+ * need to declare and configure it in your DispatcherServlet context, by adding
+ * a RouterHandlerMapping bean explicitly. RouterHandlerMapping needs the name
+ * of the route configuration file (available in the application classpath); it
+ * also allows for registering custom interceptors:
+ *
+ * <pre class="code"> &lt;bean
+ * class="org.resthub.web.springmvc.router.RouterHandlerMapping"&gt;
+ * &lt;property name="routeFiles"&gt; 
+ * &lt;list&gt;
+ *   &lt;value&gt;bindingroutes.conf&lt;/value&gt;
+ *   &lt;value&gt;addroutes.conf&lt;/value&gt;
+ * &lt;/list&gt;
+ * &lt;/property&gt; &lt;property
+ * name="interceptors" &gt; ... &lt;/property&gt; &lt;/bean&gt;
+ * </pre>
+ *
+ * <p> Annotated controllers should be marked with the {@link Controller}
+ * stereotype at the type level. This is not strictly necessary because the
+ * methodeInvoker will try to map the Controller.invoker anyway using the
+ * current ApplicationContext. The {@link RequestMapping} is not taken into
+ * account here.
+ *
+ * <p> RouterHandlerMapping loads routes configuration from a file for route
+ * configuration syntax (the Router implementation is adapted from Play!
+ * Framework {@link http://www.playframework.org/documentation/1.0.3/routes#syntax}).
+ *
+ * Example:
+ *
+ * <pre class="code"> GET /home PageController.showPage(id:'home') GET
+ * /page/{id} PageController.showPage POST /customer/{<[0-9]+>customerid}
+ * CustomerController.createCustomer
+ * </pre> <p> The {@link org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter} is responsible for choosing and
+ * invoking the right controller method, as mapped by this HandlerMapping.
+ *
+ * <p> Routes are held by the static {@link Router}, and bound to the
+ * controllers of the application context of this HandlerMapping: a single
+ * RouterHandlerMapping can be started at a time in a class loader, e.g. in
+ * either a parent or a child context. Starting a second one fails until the
+ * context of the first one is closed.
+ *
+ * @author Brian Clozel
+ * @see org.springframework.web.servlet.handler.AbstractHandlerMapping
+ */
+public class RouterHandlerMapping extends AbstractHandlerMapping implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(RouterHandlerMapping.class);
+    private List<String> routeFiles;
+    private boolean autoReloadEnabled = false;
+    private long autoReloadInterval = 1000;
+    private RouteReloader reloader;
+    private RouteLookupStrategy lookupStrategy = RouteLookupStrategy.SCAN;
+    private RegexEngine patternEngine;
+    private int cacheMaxEntries = 0;
+    private long cacheMaxMemory = 0;
+    private int cacheMaxMisses = 0;
+    private boolean adaptiveOrdering = false;
+    private boolean optionsAnswerEnabled = true;
+    private MethodOverrideMode methodOverrideMode = MethodOverrideMode.ENABLED;
+    private int parsingParallelism = 1;
+    private PatternCompilation patternCompilation = PatternCompilation.EAGER;
+    private String routeSnapshot;
+    private boolean routeSnapshotLoaded = false;
+    private RouterHandlerResolver methodResolver;
+
+    public RouterHandlerMapping() {
+        this.methodResolver = new RouterHandlerResolver();
+    }
+
+    /**
+     * Routes configuration Files names Injected by bean configuration (in
+     * servlet.xml)
+     */
+    public List<String> getRouteFiles() {
+        return routeFiles;
+    }
+
+    public void setRouteFiles(List<String> routeFiles) {
+        Assert.notEmpty(routeFiles,"routes configuration files list should not be empty");
+        this.routeFiles = routeFiles;
+    }
+
+    /**
+     * Route files auto-reloading, by a background thread checking route
+     * files for changes
+     * Injected by bean configuration (in servlet.xml)
+     * @see #setAutoReloadInterval(long)
+     */
+    public boolean isAutoReloadEnabled() {
+        return autoReloadEnabled;
+    }
+
+    public void setAutoReloadEnabled(boolean autoReloadEnabled) {
+        this.autoReloadEnabled = autoReloadEnabled;
+    }
+
+    /**
+     * Delay between two checks of route files for changes when
+     * auto-reloading, in milliseconds; 1000 by default. Changed route files
+     * are reloaded once they stayed unchanged for that delay.
+     * Injected by bean configuration (in servlet.xml)
+     */
+    public long getAutoReloadInterval() {
+        return autoReloadInterval;
+    }
+
+    public void setAutoReloadInterval(long autoReloadInterval) {
+        Assert.isTrue(autoReloadInterval > 0, "auto-reload interval should be positive");
+        this.autoReloadInterval = autoReloadInterval;
+    }
+    
+    /**
+     * Strategy used by the Router to look up routes matching requests
+     * Injected by bean configuration (in servlet.xml)
+     */
+    public RouteLookupStrategy getLookupStrategy() {
+        return lookupStrategy;
+    }
+
+    public void setLookupStrategy(RouteLookupStrategy lookupStrategy) {
+        this.lookupStrategy = lookupStrategy;
+    }
+
+    /**
+     * Regular expression engine compiling the routes; if not set, the
+     * engine currently used by the Router (jregex by default) is kept.
+     * Injected by bean configuration (in servlet.xml)
+     */
+    public RegexEngine getPatternEngine() {
+        return patternEngine;
+    }
+
+    public void setPatternEngine(RegexEngine patternEngine) {
+        this.patternEngine = patternEngine;
+    }
+
+    /**
+     * Maximum number of requests whose matching route is kept in cache;
+     * 0 (the default) disables the cache.
+     * Injected by bean configuration (in servlet.xml)
+     */
+    public int getCacheMaxEntries() {
+        return cacheMaxEntries;
+    }
+
+    public void setCacheMaxEntries(int cacheMaxEntries) {
+        this.cacheMaxEntries = cacheMaxEntries;
+    }
+
+    /**
+     * Estimated maximum memory used by the route cache, in bytes; 0 (the
+     * default) only bounds the cache by its number of entries.
+     * Injected by bean configuration (in servlet.xml)
+     */
+    public long getCacheMaxMemory() {
+        return cacheMaxMemory;
+    }
+
+    public void setCacheMaxMemory(long cacheMaxMemory) {
+        this.cacheMaxMemory = cacheMaxMemory;
+    }
+
+    /**
+     * Maximum number of requests matching no route kept in cache, so that
+     * repeated requests for other handlers are not looked up again; 0 (the
+     * default) disables caching of unmatched requests.
+     * Injected by bean configuration (in servlet.xml)
+     */
+    public int getCacheMaxMisses() {
+        return cacheMaxMisses;
+    }
+
+    public void setCacheMaxMisses(int cacheMaxMisses) {
+        this.cacheMaxMisses = cacheMaxMisses;
+    }
+
+    /**
+     * Hit, miss and eviction counters of the route cache.
+     */
+    public RouteCacheStatistics getCacheStatistics() {
+        return Router.getCacheStatistics();
+    }
+
+    /**
+     * Whether scans try first the most hit routes, among routes that can't
+     * match the same requests; disabled by default.
+     * Injected by bean configuration (in servlet.xml)
+     * @see Router#setAdaptiveOrdering(boolean)
+     */
+    public boolean isAdaptiveOrdering() {
+        return adaptiveOrdering;
+    }
+
+    public void setAdaptiveOrdering(boolean adaptiveOrdering) {
+        this.adaptiveOrdering = adaptiveOrdering;
+    }
+
+    /**
+     * Whether OPTIONS requests no route matches are answered with the
+     * methods of the routes matching the request path, in an "Allow"
+     * header; enabled by default.
+     * Injected by bean configuration (in servlet.xml)
+     * @see RouterOptionsHandler
+     */
+    public boolean isOptionsAnswerEnabled() {
+        return optionsAnswerEnabled;
+    }
+
+    public void setOptionsAnswerEnabled(boolean optionsAnswerEnabled) {
+        this.optionsAnswerEnabled = optionsAnswerEnabled;
+    }
+
+    /**
+     * How requests may override their HTTP method; by header or query
+     * string parameter by default.
+     * Injected by bean configuration (in servlet.xml)
+     */
+    public MethodOverrideMode getMethodOverrideMode() {
+        return methodOverrideMode;
+    }
+
+    public void setMethodOverrideMode(MethodOverrideMode methodOverrideMode) {
+        this.methodOverrideMode = methodOverrideMode;
+    }
+
+    /**
+     * How many route files may be parsed at once at startup; 1 by default,
+     * parsing them one after the other.
+     * Injected by bean configuration (in servlet.xml)
+     */
+    public int getParsingParallelism() {
+        return parsingParallelism;
+    }
+
+    public void setParsingParallelism(int parsingParallelism) {
+        this.parsingParallelism = parsingParallelism;
+    }
+
+    /**
+     * When route patterns are compiled; when routes are loaded by default.
+     * Injected by bean configuration (in servlet.xml)
+     * @see PatternCompilation
+     */
+    public PatternCompilation getPatternCompilation() {
+        return patternCompilation;
+    }
+
+    public void setPatternCompilation(PatternCompilation patternCompilation) {
+        this.patternCompilation = patternCompilation;
+    }
+
+    /**
+     * Location of a snapshot compiled from the route files at build time,
+     * e.g. "classpath:routes.snapshot", loaded at startup instead of parsing
+     * the route files while it matches them; none by default.
+     * Injected by bean configuration (in servlet.xml)
+     * @see RouteSnapshot
+     */
+    public String getRouteSnapshot() {
+        return routeSnapshot;
+    }
+
+    public void setRouteSnapshot(String routeSnapshot) {
+        this.routeSnapshot = routeSnapshot;
+    }
+
+    /**
+     * Whether the routes were loaded from the route snapshot at startup.
+     */
+    public boolean isRouteSnapshotLoaded() {
+        return routeSnapshotLoaded;
+    }
+
+    /**
+     * Scan depth counters of the adaptive route ordering.
+     */
+    public RouteOrderingStatistics getOrderingStatistics() {
+        return Router.getOrderingStatistics();
+    }
+
+    /**
+     * Reload routes configuration at runtime. No-op if configuration files
+     * didn't change since last reload.
+     */
+    public void reloadRoutesConfiguration() {
+        List<Resource> fileResources = new ArrayList<Resource>();
+        
+        try {
+            for (String fileName : this.routeFiles) {
+                fileResources.addAll(Arrays.asList(getApplicationContext().getResources(fileName)));
+            }
+            
+            Router.detectChanges(fileResources);
+        } catch (IOException ex) {
+            throw new RouteFileParsingException(
+                    "Could not read route configuration files", ex);
+        }
+    }
+
+    /**
+     * Inits Routes from route configuration file
+     */
+    @Override
+    protected void initApplicationContext() throws BeansException {
+
+        super.initApplicationContext();
+
+        // Scan beans for Controllers
+        this.methodResolver.setCachedControllers(getApplicationContext().getBeansWithAnnotation(Controller.class));
+        Router.setHandlerBinder(this.methodResolver);
+        try {
+            loadRoutes();
+        } catch (RuntimeException e) {
+            Router.releaseHandlerBinder(this.methodResolver);
+            throw e;
+        }
+    }
+
+    private void loadRoutes() {
+        List<Resource> fileResources = new ArrayList<Resource>();
+        Router.setLookupStrategy(this.lookupStrategy);
+        if (this.patternEngine != null) {
+            Router.setPatternEngine(this.patternEngine);
+        }
+        Router.setCacheLimits(this.cacheMaxEntries, this.cacheMaxMemory, this.cacheMaxMisses);
+        Router.setAdaptiveOrdering(this.adaptiveOrdering);
+        Router.setMethodOverrideMode(this.methodOverrideMode);
+        Router.setParsingParallelism(this.parsingParallelism);
+        Router.setPatternCompilation(this.patternCompilation);
+
+        try {
+            for(String fileName : this.routeFiles) {
+                fileResources.addAll(Arrays.asList(getApplicationContext().getResources(fileName)));
+            }
+            Resource snapshot = (this.routeSnapshot == null) ? null : getApplicationContext().getResource(this.routeSnapshot);
+            this.routeSnapshotLoaded = Router.load(fileResources, snapshot);
+            stopReloading();
+            if (this.autoReloadEnabled) {
+                this.reloader = RouteReloader.start(getApplicationContext(), this.routeFiles, this.autoReloadInterval);
+            }
+
+        } catch (IOException e) {
+            throw new RouteFileParsingException(
+                    "Could not read route configuration files", e);
+        }
+    }
+
+    /**
+     * Stops auto-reloading route files, and binding routes to the
+     * controllers of this context.
+     */
+    public void destroy() {
+        stopReloading();
+        Router.releaseHandlerBinder(this.methodResolver);
+    }
+
+    private void stopReloading() {
+        if (this.reloader != null) {
+            this.reloader.stop();
+            this.reloader = null;
+        }
+    }
+
+    /**
+     * Resolves a HandlerMethod (of type RouterHandler) given the current HTTP
+     * request, using the Router instance.
+     *
+     * @param request the HTTP Servlet request
+     * @return a RouterHandler, containing matching route + wrapped request
+     */
+    @Override
+    protected Object getHandlerInternal(HttpServletRequest request)
+            throws Exception {
+
+        HandlerMethod handler;
+        
+        // Adapt HTTPServletRequest for Router
+        HTTPRequestAdapter rq = HTTPRequestAdapter.parseRequest(request);
+        // Route request and resolve format
+        Router.Route route = Router.findRoute(rq);
+        if (route == null) {
+            if (this.optionsAnswerEnabled && "OPTIONS".equalsIgnoreCase(rq.method)) {
+                List<String> allowedMethods = Router.allowedMethods(rq.path, rq.format, rq.host);
+                if (!allowedMethods.isEmpty()) {
+                    return new RouterOptionsHandler(allowedMethods);
+                }
+            }
+            if (logger.isTraceEnabled()) {
+                logger.trace("no route found for method[" + rq.method + "] and path[" + rq.path + "]");
+            }
+            return null;
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("Looking up handler method for path {} ({} {} {})", route.path, route.method, route.path, route.action);
+        }
+        handler = this.methodResolver.resolveHandler(route, rq.action, rq);
+        // Add resolved route arguments to the request
+        request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, rq.routeArgs);
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, route.pattern.toString());
+
+        return handler;
+    }
+}
@@ -0,0 +1,80 @@
+package org.resthub.web.springmvc.router.regex;
+
+import jregex.Matcher;
+import jregex.Pattern;
+import jregex.REFlags;
+
+/**
+ * {@link RegexEngine} backed by the jregex library; this is the engine used
+ * by default.
+ *
+ * @see <a href="http://jregex.sourceforge.net/">jregex</a>
+ */
+public class JRegexEngine implements RegexEngine {
+
+    @Override
+    public RegexPattern compile(String regex, boolean ignoreCase) {
+        Pattern pattern = ignoreCase ? new Pattern(regex, REFlags.IGNORE_CASE) : new Pattern(regex);
+        return new JRegexPattern(pattern);
+    }
+
+    @Override
+    public String toString() {
+        return "jregex";
+    }
+
+    private static final class JRegexPattern implements RegexPattern {
+
+        private final Pattern pattern;
+
+        JRegexPattern(Pattern pattern) {
+            this.pattern = pattern;
+        }
+
+        @Override
+        public boolean matches(String input) {
+            return pattern.matches(input);
+        }
+
+        @Override
+        public RegexMatch match(String input) {
+            final Matcher matcher = pattern.matcher(input);
+            if (!matcher.matches()) {
+                return null;
+            }
+            return new RegexMatch() {
+
+                @Override
+                public String group(String name) {
+                    return matcher.group(name);
+                }
+
+                @Override
+                public String group(int index) {
+                    return matcher.group(index);
+                }
+
+                @Override
+                public int start(int index) {
+                    return matcher.isCaptured(index) ? matcher.start(index) : -1;
+                }
+
+                @Override
+                public int end(int index) {
+                    return matcher.isCaptured(index) ? matcher.end(index) : -1;
+                }
+            };
+        }
+
+        @Override
+        public int groupIndex(String name) {
+            Integer index = pattern.groupId(name);
+            return (index == null) ? -1 : index;
+        }
+
+        @Override
+        public String toString() {
+            return pattern.toString();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package org.resthub.web.springmvc.router.regex;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * {@link RegexEngine} backed by <code>java.util.regex</code>.
+ *
+ * <p>jregex named groups (<code>({name}...)</code>) are translated into
+ * numbered groups, so that group names aren't restricted by the JDK syntax.
+ * Other constructs are handed over to <code>java.util.regex</code> as is.
+ */
+public class JavaRegexEngine implements RegexEngine {
+
+    @Override
+    public RegexPattern compile(String regex, boolean ignoreCase) {
+        Map<String, Integer> groups = new HashMap<String, Integer>(4);
+        String translated = translate(regex, groups);
+        int flags = ignoreCase ? Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE : 0;
+        return new JavaRegexPattern(regex, Pattern.compile(translated, flags), groups);
+    }
+
+    @Override
+    public String toString() {
+        return "java.util.regex";
+    }
+
+    /**
+     * Replace jregex named groups by plain capturing groups.
+     *
+     * @param groups filled with the number of each named group
+     */
+    static String translate(String regex, Map<String, Integer> groups) {
+        StringBuilder translated = new StringBuilder(regex.length());
+        int group = 0;
+        boolean inClass = false;
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '\\' && i + 1 < regex.length()) {
+                translated.append(c).append(regex.charAt(++i));
+                continue;
+            }
+            if (inClass) {
+                inClass = c != ']';
+            } else if (c == '[') {
+                inClass = true;
+            } else if (c == '(') {
+                if (regex.startsWith("(?<", i) && !regex.startsWith("(?<=", i) && !regex.startsWith("(?<!", i)) {
+                    // JDK named group
+                    group++;
+                } else if (regex.startsWith("({", i)) {
+                    int end = regex.indexOf('}', i);
+                    String name = (end < 0) ? "" : regex.substring(i + 2, end);
+                    if (name.length() > 0 && isGroupName(name)) {
+                        groups.put(name, ++group);
+                        translated.append('(');
+                        i = end;
+                        continue;
+                    }
+                    group++;
+                } else if (!regex.startsWith("(?", i)) {
+                    group++;
+                }
+            }
+            translated.append(c);
+        }
+        return translated.toString();
+    }
+
+    private static boolean isGroupName(String name) {
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (!Character.isLetterOrDigit(c) && c != '_') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class JavaRegexPattern implements RegexPattern {
+
+        private final String source;
+        private final Pattern pattern;
+        private final Map<String, Integer> groups;
+
+        JavaRegexPattern(String source, Pattern pattern, Map<String, Integer> groups) {
+            this.source = source;
+            this.pattern = pattern;
+            this.groups = groups.isEmpty() ? Collections.<String, Integer>emptyMap() : groups;
+        }
+
+        @Override
+        public boolean matches(String input) {
+            return pattern.matcher(input).matches();
+        }
+
+        @Override
+        public RegexMatch match(String input) {
+            final Matcher matcher = pattern.matcher(input);
+            if (!matcher.matches()) {
+                return null;
+            }
+            return new RegexMatch() {
+
+                @Override
+                public String group(String name) {
+                    Integer index = groups.get(name);
+                    if (index == null) {
+                        throw new IllegalArgumentException("No group named " + name + " in " + source);
+                    }
+                    return matcher.group(index);
+                }
+
+                @Override
+                public String group(int index) {
+                    return matcher.group(index);
+                }
+
+                @Override
+                public int start(int index) {
+                    return matcher.start(index);
+                }
+
+                @Override
+                public int end(int index) {
+                    return matcher.end(index);
+                }
+            };
+        }
+
+        @Override
+        public int groupIndex(String name) {
+            Integer index = groups.get(name);
+            return (index == null) ? -1 : index;
+        }
+
+        @Override
+        public String toString() {
+            return source;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package org.resthub.web.springmvc.router.regex;
+
+/**
+ * A pattern compiled by its engine the first time it is used.
+ *
+ * <p>{@link #toString()} returns the regular expression without compiling
+ * it. An invalid regular expression is only reported when the pattern is
+ * first used.
+ */
+public final class LazyRegexPattern implements RegexPattern {
+
+    private final RegexEngine engine;
+    private final String regex;
+    private final boolean ignoreCase;
+    private volatile RegexPattern compiled;
+
+    public LazyRegexPattern(RegexEngine engine, String regex, boolean ignoreCase) {
+        this.engine = engine;
+        this.regex = regex;
+        this.ignoreCase = ignoreCase;
+    }
+
+    /**
+     * Returns the compiled pattern, compiling it if needed. Concurrent
+     * threads may compile it more than once.
+     */
+    public RegexPattern compiled() {
+        RegexPattern pattern = compiled;
+        if (pattern == null) {
+            pattern = engine.compile(regex, ignoreCase);
+            compiled = pattern;
+        }
+        return pattern;
+    }
+
+    public boolean isCompiled() {
+        return compiled != null;
+    }
+
+    public boolean matches(String input) {
+        return compiled().matches(input);
+    }
+
+    public RegexMatch match(String input) {
+        return compiled().match(input);
+    }
+
+    public int groupIndex(String name) {
+        return compiled().groupIndex(name);
+    }
+
+    @Override
+    public String toString() {
+        return regex;
+    }
+}
@@ -0,0 +1,26 @@
+package org.resthub.web.springmvc.router.regex;
+
+/**
+ * Regular expression engine compiling route patterns, host patterns, action
+ * patterns and argument constraints.
+ *
+ * <p>Patterns are written with the jregex syntax, where a named group is
+ * declared as <code>({name}...)</code>; engines are expected to translate
+ * that syntax and to keep its matching semantics.
+ *
+ * @see JRegexEngine
+ * @see JavaRegexEngine
+ * @see org.resthub.web.springmvc.router.RouterHandlerMapping#setPatternEngine(RegexEngine)
+ */
+public interface RegexEngine {
+
+    /**
+     * Compile the given regular expression.
+     *
+     * @param regex      the regular expression, using the jregex syntax
+     * @param ignoreCase whether the pattern should ignore case
+     * @return the compiled pattern, safe for use by concurrent threads
+     * @throws IllegalArgumentException if the regular expression is invalid
+     */
+    RegexPattern compile(String regex, boolean ignoreCase);
+}
@@ -0,0 +1,33 @@
+package org.resthub.web.springmvc.router.regex;
+
+/**
+ * The groups captured by a successful {@link RegexPattern#match(String)}.
+ */
+public interface RegexMatch {
+
+    /**
+     * Returns the value captured by the given named group, or null if that
+     * group didn't participate in the match.
+     */
+    String group(String name);
+
+    /**
+     * Returns the value captured by the given group, or null if that group
+     * didn't participate in the match.
+     *
+     * @param index the group number, 0 being the whole match
+     */
+    String group(int index);
+
+    /**
+     * Returns the offset in the input of the value captured by the given
+     * group, or -1 if that group didn't participate in the match.
+     */
+    int start(int index);
+
+    /**
+     * Returns the offset in the input after the value captured by the given
+     * group, or -1 if that group didn't participate in the match.
+     */
+    int end(int index);
+}
@@ -0,0 +1,28 @@
+package org.resthub.web.springmvc.router.regex;
+
+/**
+ * A regular expression compiled by a {@link RegexEngine}.
+ *
+ * <p>{@link #toString()} returns the regular expression this pattern was
+ * compiled from.
+ */
+public interface RegexPattern {
+
+    /**
+     * Check if the whole given input matches this pattern.
+     */
+    boolean matches(String input);
+
+    /**
+     * Match the whole given input against this pattern.
+     *
+     * @return the match, or null if the input doesn't match this pattern
+     */
+    RegexMatch match(String input);
+
+    /**
+     * Returns the number of the given named group, or -1 if this pattern
+     * has no such group.
+     */
+    int groupIndex(String name);
+}
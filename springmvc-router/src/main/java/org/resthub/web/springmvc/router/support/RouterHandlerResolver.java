@@ -0,0 +1,211 @@
+package org.resthub.web.springmvc.router.support;
+
+import org.resthub.web.springmvc.router.ActionTemplate;
+import org.resthub.web.springmvc.router.HTTPRequestAdapter;
+import org.resthub.web.springmvc.router.Router;
+import org.resthub.web.springmvc.router.exceptions.ActionNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.BridgeMethodResolver;
+import org.springframework.web.method.HandlerMethod;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Resolve Controller and Action for the given route (that contains the
+ * fullAction "controller.action")
+ *
+ * <p>Routes with a static action are bound to their handler when they are
+ * loaded (see {@link Router.HandlerBinder}); only the handlers of dynamic
+ * actions, e.g. <code>{controller}.{action}</code>, are resolved and cached
+ * when handling requests.
+ *
+ * @author Brian Clozel
+ */
+public class RouterHandlerResolver implements Router.HandlerBinder {
+    
+    private final Map<String, Object> cachedControllers = new ConcurrentHashMap<String, Object>();
+
+    /**
+     * Public methods of the controllers, by controller and lower case
+     * method name, the method an action resolves to first (see
+     * {@link #ACTION_METHOD_PRECEDENCE}).
+     */
+    private final Map<String, Map<String, List<Method>>> cachedActionMethods =
+            new ConcurrentHashMap<String, Map<String, List<Method>>>();
+    
+    /**
+     * Resolved handlers, by {@link ActionTemplate.Key} for routes with a
+     * dynamic action, or by action for routes added before handlers were
+     * bound.
+     */
+    private final ConcurrentMap<Object, HandlerMethod> cachedHandlers = new ConcurrentHashMap<Object, HandlerMethod>();
+
+    private static final Logger logger = LoggerFactory.getLogger(RouterHandlerResolver.class);
+
+    /**
+     * Orders the methods matching an ambiguous action: methods declared
+     * lower in the class hierarchy first, then methods with fewer
+     * parameters, then by parameter types so that the order never depends
+     * on reflection.
+     */
+    private static final Comparator<Method> ACTION_METHOD_PRECEDENCE = new Comparator<Method>() {
+        public int compare(Method method, Method other) {
+            int deeper = depth(other.getDeclaringClass()) - depth(method.getDeclaringClass());
+            if (deeper != 0) {
+                return deeper;
+            }
+            int parameters = method.getParameterTypes().length - other.getParameterTypes().length;
+            if (parameters != 0) {
+                return parameters;
+            }
+            return signature(method).compareTo(signature(other));
+        }
+    };
+    
+    public void setCachedControllers(Map<String, Object> controllers) {
+        
+        for(String key : controllers.keySet()) {
+            Object controller = controllers.get(key);
+            Map<String, List<Method>> actionMethods = indexActionMethods(AopUtils.getTargetClass(controller));
+            this.cachedActionMethods.put(key.toLowerCase(), actionMethods);
+            this.cachedControllers.put(key.toLowerCase(), controller);
+        }
+    }
+
+    /**
+     * Returns a proper HandlerMethod given the matching Route
+     * @param route the matching Route for the current request
+     * @param fullAction string "controller.action"
+     * @return HandlerMethod to be used by the RequestAdapter
+     * @throws ActionNotFoundException
+     */
+    public HandlerMethod resolveHandler(Router.Route route, String fullAction, HTTPRequestAdapter req) throws ActionNotFoundException {
+
+        HandlerMethod bound = route.getHandler();
+        if (bound != null) {
+            return bound;
+        }
+        ActionTemplate template = route.getActionTemplate();
+        Object key = (template == null || req == null || req.routeArgs == null) ? fullAction : template.key(req.routeArgs);
+
+        // check if the Handler is already cached
+        HandlerMethod handlerMethod = this.cachedHandlers.get(key);
+        if (handlerMethod == null) {
+            handlerMethod = this.doResolveHandler(route, fullAction);
+            HandlerMethod cached = this.cachedHandlers.putIfAbsent(key, handlerMethod);
+            if (cached != null) {
+                handlerMethod = cached;
+            }
+        }
+
+        return handlerMethod;
+    }
+
+    /**
+     * Returns the handler of the static action of the given route.
+     */
+    public HandlerMethod bind(Router.Route route) throws ActionNotFoundException {
+        return this.doResolveHandler(route, route.action);
+    }
+    
+    private HandlerMethod doResolveHandler(Router.Route route, String fullAction) throws ActionNotFoundException {
+        
+        Method actionMethod;
+        Object controllerObject;
+
+        String controller = fullAction.substring(0, fullAction.lastIndexOf(".")).toLowerCase();
+        String action = fullAction.substring(fullAction.lastIndexOf(".") + 1);
+        controllerObject = cachedControllers.get(controller);
+
+        if (controllerObject == null) {
+            logger.debug("Did not find handler {} for [{} {}]", controller, route.method, route.path);
+            throw new ActionNotFoundException(fullAction, new Exception("Controller " + controller + " not found"));
+        }
+
+        // find actionMethod on target
+        List<Method> actionMethods = cachedActionMethods.get(controller).get(action.toLowerCase());
+        actionMethod = (actionMethods == null) ? null : actionMethods.get(0);
+
+        if (actionMethods != null && actionMethods.size() > 1) {
+            logger.warn("Ambiguous action {} for [{} {}], several public methods match it in class {}: {}, using {}",
+                    fullAction, route.method, route.path, controller, actionMethods, actionMethod);
+        }
+        if (actionMethod == null) {
+            logger.debug("Did not find handler method {}.{} for [{} {}]", controller, action, route.method, route.path);
+            throw new ActionNotFoundException(fullAction, new Exception("No method public static void " + action + "() was found in class " + controller));
+        }
+        
+        return new RouterHandler(controllerObject, actionMethod, route);
+    }
+
+    /**
+     * Index the public methods of a controller class and its superclasses
+     * by lower case name, as actions are looked up ignoring case; methods
+     * overridden in a subclass, even by a bridge method, are skipped.
+     * Methods sharing a name are sorted by {@link #ACTION_METHOD_PRECEDENCE}.
+     *
+     * @param clazz the controller class (the target class if the controller
+     *              is an AOP proxy)
+     */
+    private static Map<String, List<Method>> indexActionMethods(Class<?> clazz) {
+
+        Map<String, List<Method>> actionMethods = new HashMap<String, List<Method>>();
+        Set<String> signatures = new HashSet<String>();
+        while (clazz != null && clazz != Object.class) {
+            for (Method m : clazz.getDeclaredMethods()) {
+                if (!Modifier.isPublic(m.getModifiers())
+                        || !signatures.add(signature(m))) {
+                    continue;
+                }
+                if (m.isBridge()) {
+                    // a public method of a non public superclass, or a
+                    // method with generic or covariant types declared here
+                    m = BridgeMethodResolver.findBridgedMethod(m);
+                    if (m.getDeclaringClass() == clazz) {
+                        continue;
+                    }
+                } else if (m.isSynthetic()) {
+                    continue;
+                }
+                String name = m.getName().toLowerCase();
+                List<Method> methods = actionMethods.get(name);
+                if (methods == null) {
+                    methods = new ArrayList<Method>(1);
+                    actionMethods.put(name, methods);
+                }
+                methods.add(m);
+            }
+            clazz = clazz.getSuperclass();
+        }
+        for (List<Method> methods : actionMethods.values()) {
+            Collections.sort(methods, ACTION_METHOD_PRECEDENCE);
+        }
+        return actionMethods;
+    }
+
+    private static int depth(Class<?> clazz) {
+        int depth = 0;
+        for (Class<?> superclass = clazz.getSuperclass(); superclass != null; superclass = superclass.getSuperclass()) {
+            depth++;
+        }
+        return depth;
+    }
+
+    private static String signature(Method method) {
+        return method.getName() + Arrays.toString(method.getParameterTypes());
+    }
+}
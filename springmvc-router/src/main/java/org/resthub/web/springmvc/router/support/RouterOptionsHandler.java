@@ -0,0 +1,45 @@
+package org.resthub.web.springmvc.router.support;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.web.method.HandlerMethod;
+
+/**
+ * Answers an OPTIONS request no route matches, with the HTTP methods of the
+ * routes matching the request path in an "Allow" header.
+ *
+ * @see org.resthub.web.springmvc.router.Router#allowedMethods(String, String, String)
+ */
+public class RouterOptionsHandler extends HandlerMethod {
+
+    private static final Method HANDLE = ClassUtils.getMethod(AllowHeader.class, "handle", HttpServletResponse.class);
+
+    private final List<String> allowedMethods;
+
+    public RouterOptionsHandler(List<String> allowedMethods) {
+        super(new AllowHeader(StringUtils.collectionToDelimitedString(allowedMethods, ", ")), HANDLE);
+        this.allowedMethods = allowedMethods;
+    }
+
+    public List<String> getAllowedMethods() {
+        return allowedMethods;
+    }
+
+    public static class AllowHeader {
+
+        private final String value;
+
+        AllowHeader(String value) {
+            this.value = value;
+        }
+
+        public void handle(HttpServletResponse response) {
+            response.setHeader("Allow", value);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package org.resthub.web.springmvc.router;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.resthub.web.springmvc.router.Router.Route;
+
+/**
+ * Reports the heap retained by a generated route table, with the patterns
+ * and arguments of routes shared by {@link RoutePatterns} and with every
+ * route compiling its own.
+ *
+ * <p>Not run by the build; run it from the test classpath with
+ * <code>java org.resthub.web.springmvc.router.RoutePatternsBenchmark [routes]</code>.
+ */
+public final class RoutePatternsBenchmark {
+
+    private RoutePatternsBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        int count = (args.length > 0) ? Integer.parseInt(args[0]) : 5000;
+        // warm up class loading before measuring
+        build(100, true);
+        build(100, false);
+
+        long baseline = usedHeap();
+        List<Route> unshared = build(count, false);
+        long unsharedHeap = usedHeap() - baseline;
+        unshared.clear();
+
+        baseline = usedHeap();
+        List<Route> shared = build(count, true);
+        long sharedHeap = usedHeap() - baseline;
+        RoutePatterns patterns = Router.patterns();
+        System.out.printf("%d routes: %,d bytes without sharing, %,d bytes sharing %d patterns and %d args%n",
+                shared.size(), unsharedHeap, sharedHeap, patterns.getPatternCount(), patterns.getArgCount());
+    }
+
+    /**
+     * Build routes typical of a REST API: literal paths, <code>{id}</code>
+     * arguments, argument constraints and host placeholders.
+     *
+     * @param shared whether routes share their patterns
+     */
+    private static List<Route> build(int count, boolean shared) {
+        Router.setPatternEngine(Router.getPatternEngine());
+        List<Route> routes = new ArrayList<Route>(count);
+        for (int i = 0; i < count; i++) {
+            if (!shared) {
+                Router.setPatternEngine(Router.getPatternEngine());
+            }
+            String path;
+            switch (i % 4) {
+                case 0:
+                    path = "/resources" + i;
+                    break;
+                case 1:
+                    path = "/resources" + i + "/{id}";
+                    break;
+                case 2:
+                    path = "/resources" + i + "/{<[0-9]+>id}/items/{<[a-z]+>item}";
+                    break;
+                default:
+                    path = "{client}.example.org/resources" + i + "/{id}";
+                    break;
+            }
+            routes.add(Router.getRoute("GET", path, "resourceController.action" + i, null, null));
+        }
+        return routes;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,20 @@
+package org.resthub.web.springmvc.router.ambiguous;
+
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.PathVariable;
+
+@Controller
+public class AmbiguousTestController extends BaseAmbiguousTestController {
+
+    public void simpleAction() {
+    }
+
+    public void overloadedAction() {
+    }
+
+    public void overloadedAction(@PathVariable(value = "param") String param) {
+    }
+
+    public void inheritedAction(@PathVariable(value = "param") String param) {
+    }
+}
@@ -0,0 +1,7 @@
+package org.resthub.web.springmvc.router.ambiguous;
+
+public class BaseAmbiguousTestController {
+
+    public void inheritedAction() {
+    }
+}
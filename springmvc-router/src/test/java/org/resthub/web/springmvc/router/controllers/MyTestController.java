@@ -24,6 +24,9 @@ public class MyTestController {
     public void overrideMethod() {
     }
 
+    public void anyMethod() {
+    }
+
     public void paramAction(@PathVariable(value = "param") String param) {
     }
 
@@ -0,0 +1,667 @@
+package org.resthub.web.springmvc.router.test;
+
+import cucumber.api.java.After;
+import cucumber.api.java.en.Given;
+import cucumber.api.java.en.Then;
+import cucumber.api.java.en.When;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.resthub.web.springmvc.router.HTTPRequestAdapter;
+import org.resthub.web.springmvc.router.RouteCacheStatistics;
+import org.resthub.web.springmvc.router.RouteOrderingStatistics;
+import org.resthub.web.springmvc.router.RouteSnapshot;
+import org.resthub.web.springmvc.router.Router;
+import org.resthub.web.springmvc.router.RouterHandlerMapping;
+import org.resthub.web.springmvc.router.exceptions.RouteFileParsingException;
+import org.resthub.web.springmvc.router.hateoas.RouterLinkBuilder;
+import org.resthub.web.springmvc.router.support.RouterHandler;
+import org.springframework.beans.BeansException;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.support.AbstractRefreshableWebApplicationContext;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+import org.springframework.web.context.support.XmlWebApplicationContext;
+import org.springframework.web.servlet.*;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class HandlersStepdefs {
+
+    private AbstractRefreshableWebApplicationContext wac;
+    private HandlerMapping hm;
+    private HandlerAdapter ha;
+
+    private RouterLinkBuilder linkBuilder;
+
+    private String servletPath = "";
+    private String contextPath = "";
+    private List<HTTPParam> queryParams = new ArrayList<HTTPParam>();
+
+    private String queryString;
+    private List<HTTPHeader> headers = new ArrayList<HTTPHeader>();
+
+    private MockHttpServletRequest request;
+
+    private String host = "example.org";
+
+    private HandlerExecutionChain chain;
+
+    private Router.Route rememberedRoute;
+
+    private WeakReference<Object> rememberedRouteFile;
+
+    private int routeFileVersion;
+
+    private int patternCount;
+
+    @After
+    public void close_the_web_application() {
+        if (this.wac != null) {
+            this.wac.close();
+        }
+    }
+
+    @Given("^a route file \"([^\"]*)\" copied from \"([^\"]*)\"$")
+    public void a_route_file_copied_from(String routeFile, String source) throws Throwable {
+
+        File file = new File(routeFile);
+        file.getParentFile().mkdirs();
+        FileUtils.copyInputStreamToFile(new ClassPathResource(source).getInputStream(), file);
+    }
+
+    @When("^I add the route \"([^\"]*)\" to the route file \"([^\"]*)\"$")
+    public void I_add_the_route_to_the_route_file(String route, String routeFile) throws Throwable {
+
+        File file = new File(routeFile);
+        long lastModified = file.lastModified();
+        FileUtils.writeStringToFile(file, "\n" + route + "\n", true);
+        // make sure the change is seen with coarse file timestamps
+        file.setLastModified(lastModified + 2000);
+    }
+
+    @Then("^the request \"([^\"]*)\" \"([^\"]*)\" should be handled by \"([^\"]*)\" within (\\d+) seconds?$")
+    public void the_request_should_be_handled_within(String method, String url, String controllerAction, int seconds) throws Throwable {
+
+        long deadline = System.currentTimeMillis() + seconds * 1000L;
+        I_send_the_HTTP_request(method, url);
+        while (chain == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            I_send_the_HTTP_request(method, url);
+        }
+        the_request_should_be_handled_by(controllerAction);
+    }
+
+    @Then("^the request \"([^\"]*)\" \"([^\"]*)\" should be handled by \"([^\"]*)\" while \"([^\"]*)\" is reloaded (\\d+) times$")
+    public void the_request_should_be_handled_while_reloading(String method, String url, String controllerAction,
+                                                             final String routeFile, final int times) throws Throwable {
+
+        final List<Throwable> failures = new ArrayList<Throwable>();
+        Thread reloader = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    for (int i = 0; i < times; i++) {
+                        Router.load(Arrays.<Resource>asList(new ClassPathResource(routeFile)));
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            }
+        };
+        reloader.start();
+        do {
+            I_send_the_HTTP_request(method, url);
+            the_request_should_be_handled_by(controllerAction);
+        } while (reloader.isAlive());
+        reloader.join();
+        assertThat(failures).isEmpty();
+    }
+
+    @When("^I reload the route file \"([^\"]*)\"(?: (\\d+) times)?$")
+    public void I_reload_the_route_file(String routeFile, Integer times) throws Throwable {
+
+        for (int i = 0; i < (times == null ? 1 : times); i++) {
+            Router.load(Arrays.<Resource>asList(new ClassPathResource(routeFile)));
+        }
+    }
+
+    @When("^I reload a route file (\\d+) times?, changing the pattern of its route each time$")
+    public void I_reload_a_route_file_changing_its_pattern(int times) throws Throwable {
+
+        File routeFile = new File("target/pattern-reload/routes.conf");
+        for (int i = 0; i < times; i++) {
+            routeFileVersion++;
+            FileUtils.writeStringToFile(routeFile, "GET /items" + routeFileVersion + "/{<[0-9]+>id} "
+                    + "myTestController.paramAction(param:'" + routeFileVersion + "')\n");
+            Router.load(Arrays.<Resource>asList(new FileSystemResource(routeFile)));
+        }
+    }
+
+    @When("^I count the route patterns$")
+    public void I_count_the_route_patterns() throws Throwable {
+
+        patternCount = routePatternCount();
+    }
+
+    @Then("^the route pattern count should not have changed$")
+    public void the_route_pattern_count_should_not_have_changed() throws Throwable {
+
+        assertThat(routePatternCount()).isEqualTo(patternCount);
+    }
+
+    private static int routePatternCount() throws Exception {
+
+        Method patterns = Router.class.getDeclaredMethod("patterns");
+        patterns.setAccessible(true);
+        Object pool = patterns.invoke(null);
+        Method count = pool.getClass().getDeclaredMethod("getPatternCount");
+        count.setAccessible(true);
+        return (Integer) count.invoke(pool);
+    }
+
+    @When("^I remember the loaded route file$")
+    public void I_remember_the_loaded_route_file() throws Throwable {
+
+        Field loadedFiles = Router.class.getDeclaredField("loadedFiles");
+        loadedFiles.setAccessible(true);
+        List<?> files = (List<?>) loadedFiles.get(null);
+        assertThat(files).hasSize(1);
+        rememberedRouteFile = new WeakReference<Object>(files.get(0));
+    }
+
+    @Then("^the remembered route file should be collected$")
+    public void the_remembered_route_file_should_be_collected() throws Throwable {
+
+        for (int i = 0; i < 50 && rememberedRouteFile.get() != null; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertThat(rememberedRouteFile.get()).isNull();
+    }
+
+    @Given("^I have a web application with the config locations \"([^\"]*)\"$")
+    public void I_have_a_web_applications_with_the_config_locations(String locations) throws Throwable {
+        I_have_a_web_application_configured_locations_servletPath_contextPath(locations,"","");
+    }
+
+
+    @Given("^I have a web application configured locations \"([^\"]*)\" servletPath \"([^\"]*)\" contextPath \"([^\"]*)\"$")
+    public void I_have_a_web_application_configured_locations_servletPath_contextPath(String locations, String servletPath, String contextPath) throws Throwable {
+
+        this.servletPath = servletPath;
+        this.contextPath = contextPath;
+
+        MockServletContext sc = new MockServletContext();
+        sc.setContextPath(contextPath);
+
+        this.wac = new XmlWebApplicationContext();
+        this.wac.setServletContext(sc);
+        this.wac.setConfigLocations(locations.split(","));
+        this.wac.refresh();
+
+        this.hm = this.wac.getBean(RouterHandlerMapping.class);
+        this.ha = this.wac.getBean(RequestMappingHandlerAdapter.class);
+    }
+
+    @Then("^starting a web application with the config locations \"([^\"]*)\" should fail with \"([^\"]*)\"$")
+    public void starting_a_web_application_should_fail_with(String locations, String error) throws Throwable {
+
+        try {
+            I_have_a_web_applications_with_the_config_locations(locations);
+            fail("Starting a web application with " + locations + " should fail");
+        } catch (BeansException e) {
+            assertThat(e.getMostSpecificCause()).isInstanceOf(RouteFileParsingException.class);
+            assertThat(e.getMostSpecificCause().getMessage()).contains(error);
+        }
+    }
+
+    @Then("^starting a second web application with the config locations \"([^\"]*)\" should fail with \"([^\"]*)\"$")
+    public void starting_a_second_web_application_should_fail_with(String locations, String error) throws Throwable {
+
+        XmlWebApplicationContext second = new XmlWebApplicationContext();
+        second.setServletContext(new MockServletContext());
+        second.setConfigLocations(locations.split(","));
+        try {
+            second.refresh();
+            second.close();
+            fail("Starting a second web application with " + locations + " should fail");
+        } catch (BeansException e) {
+            assertThat(e.getMostSpecificCause()).isInstanceOf(IllegalStateException.class);
+            assertThat(e.getMostSpecificCause().getMessage()).contains(error);
+        }
+    }
+
+    @Given("^a route snapshot \"([^\"]*)\" compiled from \"([^\"]*)\"$")
+    public void a_route_snapshot_compiled_from(String snapshot, String routeFiles) throws Throwable {
+
+        List<Resource> resources = new ArrayList<Resource>();
+        for (String routeFile : routeFiles.split(",")) {
+            resources.add(new ClassPathResource(routeFile));
+        }
+        File snapshotFile = new File(snapshot);
+        snapshotFile.getParentFile().mkdirs();
+        OutputStream out = new FileOutputStream(snapshotFile);
+        try {
+            RouteSnapshot.compile(resources, out);
+        } finally {
+            out.close();
+        }
+    }
+
+    @Then("^a route snapshot compiled from a route with a (\\d+) characters long argument should load that argument$")
+    public void a_route_snapshot_with_a_long_argument_should_load_it(int length) throws Throwable {
+
+        StringBuilder longParam = new StringBuilder(length);
+        while (longParam.length() < length) {
+            longParam.append('a');
+        }
+        String param = longParam.toString();
+        File routeFile = new File("target/long-routes/longroutes.conf");
+        FileUtils.writeStringToFile(routeFile, "GET /long myTestController.paramAction(param:'" + param + "')\n");
+        List<Resource> resources = Arrays.<Resource>asList(new FileSystemResource(routeFile));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RouteSnapshot.compile(resources, out);
+
+        assertThat(Router.load(resources, new ByteArrayResource(out.toByteArray()))).isTrue();
+        assertThat(Router.getRoutes().get(0).getStaticArgs().get("param")).isEqualTo(param);
+    }
+
+    @Given("^a jar \"([^\"]*)\" containing \"([^\"]*)\"$")
+    public void a_jar_containing(String jar, String entry) throws Throwable {
+
+        File jarFile = new File(jar);
+        jarFile.getParentFile().mkdirs();
+        // replace the jar rather than overwriting it, as opened jars are cached
+        File tmpFile = File.createTempFile("routes", ".jar", jarFile.getParentFile());
+        JarOutputStream out = new JarOutputStream(new FileOutputStream(tmpFile));
+        try {
+            out.putNextEntry(new JarEntry(entry));
+            out.write(IOUtils.toByteArray(new ClassPathResource(entry).getInputStream()));
+            out.closeEntry();
+        } finally {
+            out.close();
+        }
+        assertThat(tmpFile.renameTo(jarFile)).isTrue();
+    }
+
+    @Given("^I have a web application with javaconfig in package \"([^\"]*)\"$")
+    public void I_have_a_web_application_with_javaconfig_in_package(String scanPackage) throws Throwable {
+        MockServletContext sc = new MockServletContext("");
+        AnnotationConfigWebApplicationContext appContext = new AnnotationConfigWebApplicationContext();
+        appContext.scan(scanPackage);
+        appContext.setServletContext(sc);
+        appContext.refresh();
+
+        this.wac = appContext;
+
+        this.hm = appContext.getBean(RouterHandlerMapping.class);
+        this.ha = appContext.getBean(RequestMappingHandlerAdapter.class);
+    }
+
+    @Given("^a current request \"([^\"]*)\" \"([^\"]*)\" with servlet path \"([^\"]*)\" and context path \"([^\"]*)\"$")
+    public void a_current_request_with_servlet_path_and_context_path(String method, String url, String servletPath, String contextPath) throws Throwable {
+
+        MockServletContext sc = new MockServletContext();
+        sc.setContextPath(contextPath);
+
+        int pathLength = 0;
+        if(contextPath.length() > 0) {
+            pathLength += contextPath.length();
+        }
+
+        if(servletPath.length() > 0) {
+            pathLength += servletPath.length();
+        }
+
+        request = new MockHttpServletRequest(sc, method, url);
+        request.setContextPath(contextPath);
+        request.setServletPath(servletPath);
+        request.addHeader("host", host);
+
+        request.setPathInfo(url.substring(pathLength));
+
+	    ServletRequestAttributes requestAttributes = new ServletRequestAttributes(request);
+	    RequestContextHolder.setRequestAttributes(requestAttributes);
+
+        HTTPRequestAdapter.parseRequest(request);
+    }
+
+
+
+    @When("^I send the HTTP request \"([^\"]*)\" \"([^\"]*)\"$")
+    public void I_send_the_HTTP_request(String method, String url) throws Throwable {
+
+        int pathLength = 0;
+        if(this.contextPath.length() > 0) {
+            pathLength += this.contextPath.length();
+        }
+
+        if(this.servletPath.length() > 0) {
+            pathLength += this.servletPath.length();
+        }
+
+        request = new MockHttpServletRequest(this.wac.getServletContext(),method, url);
+        request.setContextPath(this.contextPath);
+        request.setServletPath(this.servletPath);
+        request.addHeader("host", host);
+
+	    ServletRequestAttributes requestAttributes = new ServletRequestAttributes(request);
+	    RequestContextHolder.setRequestAttributes(requestAttributes);
+
+        for (HTTPHeader header : headers) {
+            request.addHeader(header.name, header.value);
+        }
+
+        for (HTTPParam param : queryParams) {
+            request.addParameter(param.name, param.value);
+        }
+        request.setQueryString(queryString);
+
+        request.setPathInfo(url.substring(pathLength));
+        chain = this.hm.getHandler(request);
+    }
+
+    @When("^I send the HTTP request \"([^\"]*)\" \"([^\"]*)\" (\\d+) times$")
+    public void I_send_the_HTTP_request_times(String method, String url, int times) throws Throwable {
+
+        for (int i = 0; i < times; i++) {
+            I_send_the_HTTP_request(method, url);
+        }
+    }
+
+    @When("^I send the HTTP request \"([^\"]*)\" \"([^\"]*)\" with a null pathInfo$")
+    public void I_send_the_HTTP_request_with_a_null_pathInfo(String method, String url) throws Throwable {
+
+        request = new MockHttpServletRequest(this.wac.getServletContext());
+        request.setMethod(method);
+        request.setContextPath(this.contextPath);
+        request.setServletPath(url.replaceFirst(this.contextPath,""));
+        request.addHeader("host", host);
+
+        for (HTTPHeader header : headers) {
+            request.addHeader(header.name, header.value);
+        }
+
+        for (HTTPParam param : queryParams) {
+            request.addParameter(param.name, param.value);
+        }
+
+        request.setPathInfo(null);
+
+	    ServletRequestAttributes requestAttributes = new ServletRequestAttributes(request);
+	    RequestContextHolder.setRequestAttributes(requestAttributes);
+
+        chain = this.hm.getHandler(request);
+    }
+
+
+
+    @When("^I send the HTTP request \"([^\"]*)\" \"([^\"]*)\" to host \"([^\"]*)\"$")
+    public void I_send_the_HTTP_request_to_host(String method, String url, String host) throws Throwable {
+
+        this.host = host;
+        I_send_the_HTTP_request(method,url);
+    }
+
+    @When("^I send the HTTP request \"([^\"]*)\" \"([^\"]*)\" with query params:$")
+    public void I_send_the_HTTP_request_with_query_params(String method, String url, List<HTTPParam> queryParams) throws Throwable {
+
+        this.queryParams = queryParams;
+        I_send_the_HTTP_request(method,url);
+    }
+
+    @When("^I send the HTTP request \"([^\"]*)\" \"([^\"]*)\" with query string \"([^\"]*)\"$")
+    public void I_send_the_HTTP_request_with_query_string(String method, String url, String queryString) throws Throwable {
+
+        this.queryString = queryString;
+        I_send_the_HTTP_request(method,url);
+    }
+
+    @When("^I send the HTTP request \"([^\"]*)\" \"([^\"]*)\" with headers:$")
+    public void I_send_the_HTTP_request_with_headers(String method, String url, List<HTTPHeader> headers) throws Throwable {
+
+        this.headers = headers;
+        I_send_the_HTTP_request(method,url);
+    }
+
+    @When("^I build a link for controller \"([^\"]*)\" and action \"([^\"]*)\"$")
+    public void I_build_a_link_for_controller_and_action(String controller, String action) throws Throwable {
+
+         linkBuilder = RouterLinkBuilder.linkTo(controller,action);
+    }
+
+    @When("^I add an argument named \"([^\"]*)\" with value \"([^\"]*)\"$")
+    public void I_add_a_argument_named_with_value(String name, String value) throws Throwable {
+        linkBuilder = linkBuilder.slash(name, value);
+    }
+
+    @When("^I add an argument \"([^\"]*)\"$")
+    public void I_add_a_argument(String argument) throws Throwable {
+        linkBuilder = linkBuilder.slash(argument);
+    }
+
+    @Then("^no handler should be found$")
+    public void no_handler_should_be_found() throws Throwable {
+
+        assertThat(chain).isNull();
+    }
+
+    @Then("^the request should be handled by \"([^\"]*)\"$")
+    public void the_request_should_be_handled_by(String controllerAction) throws Throwable {
+
+        assertThat(chain).isNotNull();
+        RouterHandler handler = (RouterHandler) chain.getHandler();
+
+        assertThat(handler).isNotNull();
+        assertThat(handler.getRoute()).isNotNull();
+        assertThat(handler.getRoute().action).isNotNull().isEqualToIgnoringCase(controllerAction);
+    }
+
+
+    @Then("^the request should be handled by the action method \"([^\"]*)\"$")
+    public void the_request_should_be_handled_by_the_action_method(String actionMethod) throws Throwable {
+
+        assertThat(chain).isNotNull();
+        RouterHandler handler = (RouterHandler) chain.getHandler();
+        assertThat(handler.getMethod().getName()).isEqualTo(actionMethod);
+    }
+
+    @Then("^the request should be handled by the action method \"([^\"]*)\" with (\\d+) parameters?$")
+    public void the_request_should_be_handled_by_the_action_method_with_parameters(String actionMethod, int parameters) throws Throwable {
+
+        the_request_should_be_handled_by_the_action_method(actionMethod);
+        RouterHandler handler = (RouterHandler) chain.getHandler();
+        assertThat(handler.getMethod().getParameterTypes()).hasSize(parameters);
+    }
+
+    @Then("^the request should be handled by the handler bound to its route$")
+    public void the_request_should_be_handled_by_the_handler_bound_to_its_route() throws Throwable {
+
+        assertThat(chain).isNotNull();
+        RouterHandler handler = (RouterHandler) chain.getHandler();
+        assertThat(handler.getRoute().getHandler()).isSameAs(handler);
+    }
+
+    @Then("^the route cache should count (\\d+) hits?, (\\d+) miss(?:es)? and (\\d+) evictions?$")
+    public void the_route_cache_should_count(long hits, long misses, long evictions) throws Throwable {
+
+        RouteCacheStatistics statistics = ((RouterHandlerMapping) hm).getCacheStatistics();
+        assertThat(statistics.getHits()).isEqualTo(hits);
+        assertThat(statistics.getMisses()).isEqualTo(misses);
+        assertThat(statistics.getEvictions()).isEqualTo(evictions);
+    }
+
+    @Then("^the route cache should count (\\d+) hits?$")
+    public void the_route_cache_should_count_hits(long hits) throws Throwable {
+
+        assertThat(((RouterHandlerMapping) hm).getCacheStatistics().getHits()).isEqualTo(hits);
+    }
+
+    @When("^I remember the route handling the request$")
+    public void I_remember_the_route_handling_the_request() throws Throwable {
+
+        assertThat(chain).isNotNull();
+        rememberedRoute = ((RouterHandler) chain.getHandler()).getRoute();
+    }
+
+    @Then("^the request should be handled by the remembered route$")
+    public void the_request_should_be_handled_by_the_remembered_route() throws Throwable {
+
+        assertThat(chain).isNotNull();
+        assertThat(((RouterHandler) chain.getHandler()).getRoute()).isSameAs(rememberedRoute);
+    }
+
+    @Then("^the route ordering should save (\\d+) routes? in (\\d+) scans?$")
+    public void the_route_ordering_should_save(long saved, long scans) throws Throwable {
+
+        RouteOrderingStatistics statistics = ((RouterHandlerMapping) hm).getOrderingStatistics();
+        assertThat(statistics.getRoutesSaved()).isEqualTo(saved);
+        assertThat(statistics.getScans()).isEqualTo(scans);
+    }
+
+    @Then("^compiling a route snapshot from \"([^\"]*)\" should fail with \"([^\"]*)\"$")
+    public void compiling_a_route_snapshot_should_fail_with(String routeFile, String error) throws Throwable {
+
+        try {
+            RouteSnapshot.compile(Arrays.<Resource>asList(new ClassPathResource(routeFile)), new ByteArrayOutputStream());
+            fail("Compiling a route snapshot from " + routeFile + " should fail");
+        } catch (RouteFileParsingException e) {
+            assertThat(e.getMessage()).contains(error);
+        }
+    }
+
+    @Then("^the routes should( not)? be loaded from the route snapshot$")
+    public void the_routes_should_be_loaded_from_the_route_snapshot(String not) throws Throwable {
+
+        assertThat(((RouterHandlerMapping) hm).isRouteSnapshotLoaded()).isEqualTo(not == null);
+    }
+
+    @Then("^the routes should be declared in the files \"([^\"]*)\", line by line$")
+    public void the_routes_should_be_declared_in_the_files(String files) throws Throwable {
+
+        List<String> declaredFiles = new ArrayList<String>();
+        String lastFile = null;
+        int lastLine = 0;
+        for (Router.Route route : Router.getRoutes()) {
+            String file = route.routesFile.substring(route.routesFile.lastIndexOf(File.separatorChar) + 1);
+            if (file.equals(lastFile)) {
+                assertThat(route.routesFileLine).isGreaterThan(lastLine);
+            } else {
+                declaredFiles.add(file);
+            }
+            lastFile = file;
+            lastLine = route.routesFileLine;
+        }
+        assertThat(declaredFiles).containsExactly(files.split(",\\s*"));
+    }
+
+    @Then("^the handler should answer with the allowed methods \"([^\"]*)\"$")
+    public void the_handler_should_answer_with_the_allowed_methods(String allowedMethods) throws Throwable {
+
+        assertThat(chain).isNotNull();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        ha.handle(request, response, chain.getHandler());
+        assertThat(response.getHeader("Allow")).isEqualTo(allowedMethods);
+    }
+
+    @Then("^the handler should raise a security exception$")
+    public void the_handler_should_raise_a_security_exception() throws Throwable {
+
+        assertThat(chain).isNotNull();
+        RouterHandler handler = (RouterHandler) chain.getHandler();
+
+        Exception securityException = null;
+
+        try {
+            ha.handle(request, new MockHttpServletResponse(), handler);
+        } catch(Exception exc) {
+            securityException = exc;
+        }
+
+        assertThat(securityException).isNotNull().isInstanceOf(AuthenticationCredentialsNotFoundException.class);
+    }
+
+    @Then("^the controller should respond with a ModelAndView containing:$")
+    public void the_controller_should_respond_with_a_ModelAndView_containing(List<MaVParams> mavparams) throws Throwable {
+
+        assertThat(chain).isNotNull();
+        RouterHandler handler = (RouterHandler) chain.getHandler();
+
+        ModelAndView mv = ha.handle(request, new MockHttpServletResponse(), handler);
+
+        for (MaVParams param : mavparams) {
+            assertThat(param.value).isEqualTo(mv.getModel().get(param.key).toString());
+        }
+    }
+
+    @Then("^the server should send an HTTP response with status \"([^\"]*)\"$")
+    public void the_server_should_send_an_HTTP_response_with_status(int status) throws Throwable {
+
+        RouterHandler handler = null;
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        if(chain != null) {
+            handler = (RouterHandler) chain.getHandler();
+        }
+
+        HandlerInterceptor[] interceptors = chain.getInterceptors();
+
+        for(HandlerInterceptor interceptor : Arrays.asList(interceptors)) {
+            interceptor.preHandle(request,response, handler);
+        }
+
+        ha.handle(request, response, handler);
+        assertThat(response.getStatus()).isEqualTo(status);
+    }
+
+    @Then("^the raw link should be \"([^\"]*)\"$")
+    public void the_raw_link_should_be(String link) throws Throwable {
+
+        assertThat(linkBuilder.toString()).isEqualTo(link);
+    }
+
+    @Then("^the self rel link should be \"(.*)\"$")
+    public void the_self_rel_link_should_be(String link) throws Throwable {
+
+        assertThat(linkBuilder.withSelfRel().toString()).isEqualTo(link);
+    }
+
+    public static class HTTPHeader {
+        public String name;
+        public String value;
+    }
+
+    public static class HTTPParam {
+        public String name;
+        public String value;
+    }
+
+    public static class MaVParams {
+        public String key;
+        public String value;
+    }
+
+}
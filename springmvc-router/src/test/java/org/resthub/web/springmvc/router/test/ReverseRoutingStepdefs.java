@@ -1,9 +1,12 @@
 package org.resthub.web.springmvc.router.test;
 
+import cucumber.api.java.After;
 import cucumber.api.java.en.Given;
 import cucumber.api.java.en.Then;
 import cucumber.api.java.en.When;
 import org.resthub.web.springmvc.router.HTTPRequestAdapter;
+import org.resthub.web.springmvc.router.PatternCompilation;
+import org.resthub.web.springmvc.router.RouteTransaction;
 import org.resthub.web.springmvc.router.Router;
 import org.resthub.web.springmvc.router.exceptions.NoHandlerFoundException;
 import org.springframework.mock.web.MockHttpServletRequest;
@@ -24,10 +27,18 @@ public class ReverseRoutingStepdefs {
 
     private Exception thrownException;
 
+    private RouteTransaction transaction;
+
+    @After("@registration")
+    public void clear_the_registered_routes() {
+        Router.clear();
+    }
+
     @Given("^an empty Router$")
     public void an_empty_Router() throws Throwable {
         // clear routes from the static Router
         Router.clear();
+        Router.setPatternCompilation(PatternCompilation.EAGER);
 	    // clear RequestContextHolder from previous tests
 	    MockHttpServletRequest request = new MockHttpServletRequest("GET","http://localhost/");
 	    request.addHeader("host", "localhost");
@@ -35,6 +46,11 @@ public class ReverseRoutingStepdefs {
 	    RequestContextHolder.setRequestAttributes(requestAttributes);
     }
 
+    @Given("^route patterns compiled on first use$")
+    public void route_patterns_compiled_on_first_use() throws Throwable {
+        Router.setPatternCompilation(PatternCompilation.LAZY);
+    }
+
     @Given("^I have a route with method \"([^\"]*)\" path \"([^\"]*)\" action \"([^\"]*)\"$")
     public void I_have_a_route_with_method_url_action(String method, String path, String action) throws Throwable {
         Router.prependRoute(method, path, action);
@@ -79,6 +95,74 @@ public class ReverseRoutingStepdefs {
         resolvedAction = Router.reverse(action);
     }
 
+    @When("^I register the routes:$")
+    public void I_register_the_routes(List<RegisteredRouteItem> routes) throws Throwable {
+        RouteTransaction transaction = Router.transaction();
+        for (RegisteredRouteItem item : routes) {
+            transaction.add(item.id, item.method, item.path, item.action);
+        }
+        transaction.commit();
+    }
+
+    @When("^I replace the route \"([^\"]*)\" with \"([^\"]*)\" \"([^\"]*)\" \"([^\"]*)\" and remove the route \"([^\"]*)\"$")
+    public void I_replace_the_route_and_remove_the_route(String id, String method, String path, String action,
+                                                        String removedId) throws Throwable {
+        try {
+            Router.transaction().replace(id, method, path, action).remove(removedId).commit();
+        } catch (Exception exc) {
+            this.thrownException = exc;
+        }
+    }
+
+    @When("^I register the route \"([^\"]*)\" with \"([^\"]*)\" \"([^\"]*)\" \"([^\"]*)\" and remove the route \"([^\"]*)\"$")
+    public void I_register_the_route_and_remove_the_route(String id, String method, String path, String action,
+                                                         String removedId) throws Throwable {
+        this.transaction = Router.transaction().add(id, method, path, action).remove(removedId);
+        try {
+            this.transaction.commit();
+        } catch (Exception exc) {
+            this.thrownException = exc;
+        }
+    }
+
+    @When("^I append the route \"([^\"]*)\" \"([^\"]*)\" \"([^\"]*)\"$")
+    public void I_append_the_route(String method, String path, String action) throws Throwable {
+        Router.addRoute(method, path, action);
+    }
+
+    @When("^I add the route \"([^\"]*)\" \"([^\"]*)\" \"([^\"]*)\" at position (\\d+)$")
+    public void I_add_the_route_at_position(String method, String path, String action, int position) throws Throwable {
+        Router.addRoute(position, method, path, action, null);
+    }
+
+    @When("^I add (\\d+) times the route \"([^\"]*)\" \"([^\"]*)\" \"([^\"]*)\" at position (\\d+), numbering its action$")
+    public void I_add_times_the_route_at_position(int times, String method, String path, String action, int position) throws Throwable {
+        for (int i = 1; i <= times; i++) {
+            Router.addRoute(position, method, path, action + i, null);
+        }
+    }
+
+    @When("^I commit the rejected route transaction again$")
+    public void I_commit_the_rejected_route_transaction_again() throws Throwable {
+        this.transaction.commit();
+    }
+
+    @Then("^the request \"([^\"]*)\" \"([^\"]*)\" to host \"([^\"]*)\" should be routed to \"([^\"]*)\"$")
+    public void the_request_should_be_routed_to(String method, String path, String host, String action) throws Throwable {
+        assertThat(Router.route(method, path, null, host).get("action")).isEqualTo(action);
+    }
+
+    @Then("^the request \"([^\"]*)\" \"([^\"]*)\" to host \"([^\"]*)\" should match no route$")
+    public void the_request_should_match_no_route(String method, String path, String host) throws Throwable {
+        assertThat(Router.route(method, path, null, host)).isEmpty();
+    }
+
+    @Then("^the route transaction should fail with \"([^\"]*)\"$")
+    public void the_route_transaction_should_fail_with(String message) throws Throwable {
+        assertThat(this.thrownException).isNotNull().isInstanceOf(IllegalArgumentException.class);
+        assertThat(this.thrownException.getMessage()).isEqualTo(message);
+    }
+
     @Then("^I should get an action with path \"([^\"]*)\"$")
     public void I_should_get_an_action_with_URL(String path) throws Throwable {
          assertThat(path).isEqualTo(resolvedAction.url);
@@ -102,6 +186,13 @@ public class ReverseRoutingStepdefs {
         public String params;
     }
 
+    public static class RegisteredRouteItem {
+        public String id;
+        public String method;
+        public String path;
+        public String action;
+    }
+
     public static class ParamItem {
         public String key;
         public String value;
@@ -0,0 +1,26 @@
+package org.resthub.web.springmvc.router.test;
+
+import cucumber.api.junit.Cucumber;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.runner.RunWith;
+import org.resthub.web.springmvc.router.Router;
+import org.resthub.web.springmvc.router.regex.JRegexEngine;
+import org.resthub.web.springmvc.router.regex.JavaRegexEngine;
+
+/**
+ * Runs the features again with routes compiled by java.util.regex.
+ */
+@RunWith(Cucumber.class)
+public class RunCucumberJavaRegexTest {
+
+    @BeforeClass
+    public static void useJavaRegexEngine() {
+        Router.setPatternEngine(new JavaRegexEngine());
+    }
+
+    @AfterClass
+    public static void restoreDefaultEngine() {
+        Router.setPatternEngine(new JRegexEngine());
+    }
+}
@@ -44,6 +44,18 @@ Feature: Handler adapter support
       | key          | value      |
       | subdomain    | myhost     |
 
+  Scenario: Binding a prefixed subdomain within the HTTP request
+    Given I have a web application with the config locations "/bindingTestContext.xml"
+    When I send the HTTP request "GET" "/bind/prefixedhost" to host "api-myhost.domain.org"
+    Then the controller should respond with a ModelAndView containing:
+      | key          | value      |
+      | subdomain    | myhost     |
+
+  Scenario: Checking routes bound to subdomains won't work with other domains
+    Given I have a web application with the config locations "/bindingTestContext.xml"
+    When I send the HTTP request "GET" "/bind/regexphost" to host "myhost.otherdomain.org"
+    Then no handler should be found
+
   Scenario: Binding modelattributes within the HTTP request
     Given I have a web application with the config locations "/bindingTestContext.xml"
     When I send the HTTP request "GET" "/bind/modelattribute" to host "myhost.domain.org"
@@ -74,4 +86,19 @@ Feature: Handler adapter support
     Then the controller should respond with a ModelAndView containing:
       | key   | value               |
       | slug  | my-slug-number-1    |
-      | hash  | slughash            |
\ No newline at end of file
+      | hash  | slughash            |
+
+  Scenario: Binding a regexp and a hostname with the automaton lookup strategy
+    Given I have a web application with the config locations "/automatonBindingTestContext.xml"
+    When I send the HTTP request "GET" "/bind/hostslug/my-slug-number-1"
+    Then the controller should respond with a ModelAndView containing:
+      | key       | value             |
+      | hostname  | example.org       |
+      | slug      | my-slug-number-1  |
+
+  Scenario: Binding a subdomain with the automaton lookup strategy
+    Given I have a web application with the config locations "/automatonBindingTestContext.xml"
+    When I send the HTTP request "GET" "/bind/regexphost" to host "myhost.domain.org"
+    Then the controller should respond with a ModelAndView containing:
+      | key          | value      |
+      | subdomain    | myhost     |
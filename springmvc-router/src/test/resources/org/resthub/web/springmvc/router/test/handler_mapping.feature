@@ -0,0 +1,349 @@
+Feature: Handler mapping support
+  As a developer coding a application
+  I want HTTP requests to be mapped to controllers
+  In order to implement Controller behaviour accordingly
+
+
+  Scenario: No route defined for a request
+    Given I have a web application with the config locations "/simpleTestContext.xml"
+    When I send the HTTP request "GET" "/noroute"
+    Then no handler should be found
+
+  Scenario: Mapping a simple request
+    Given I have a web application with the config locations "/simpleTestContext.xml"
+    When I send the HTTP request "GET" "/simpleaction"
+    Then the request should be handled by "myTestController.simpleAction"
+
+  Scenario: Mapping a request with a default param
+    Given I have a web application with the config locations "/simpleTestContext.xml"
+    When I send the HTTP request "GET" "/param"
+    Then the request should be handled by "myTestController.paramAction"
+
+  Scenario: Mapping a request with a given param
+    Given I have a web application with the config locations "/simpleTestContext.xml"
+    When I send the HTTP request "GET" "/param/myparam"
+    Then the request should be handled by "myTestController.paramAction"
+
+  Scenario: Mapping a request to the first declared route before a static route
+    Given I have a web application with the config locations "/simpleTestContext.xml"
+    When I send the HTTP request "GET" "/param/shadowed"
+    Then the request should be handled by "myTestController.paramAction"
+
+  Scenario: Mapping a GET request
+    Given I have a web application with the config locations "/simpleTestContext.xml"
+    When I send the HTTP request "GET" "/http"
+    Then the request should be handled by "myTestController.httpAction"
+
+  Scenario: Mapping a PUT request
+    Given I have a web application with the config locations "/simpleTestContext.xml"
+    When I send the HTTP request "PUT" "/http"
+    Then the request should be handled by "myTestController.httpAction"
+
+  Scenario: Mapping a POST request
+    Given I have a web application with the config locations "/simpleTestContext.xml"
+    When I send the HTTP request "POST" "/http"
+    Then the request should be handled by "myTestController.httpAction"
+
+  Scenario: Mapping a DELETE request
+    Given I have a web application with the config locations "/simpleTestContext.xml"
+    When I send the HTTP request "DELETE" "/http"
+    Then the request should be handled by "myTestController.httpAction"
+
+  Scenario: Mapping a PATCH request
+    Given I have a web application with the config locations "/simpleTestContext.xml"
+    When I send the HTTP request "PATCH" "/http"
+    Then the request should be handled by "myTestController.httpAction"
+
+  Scenario: Mapping a HEAD request
+    Given I have a web application with the config locations "/simpleTestContext.xml"
+    When I send the HTTP request "HEAD" "/http"
+    Then the request should be handled by "myTestController.httpAction"
+
+  Scenario: Mapping requests to a route accepting any HTTP method
+    Given I have a web application with the config locations "/simpleTestContext.xml"
+    When I send the HTTP request "DELETE" "/anymethod"
+    Then the request should be handled by "myTestController.anyMethod"
+    When I send the HTTP request "OPTIONS" "/anymethod"
+    Then the request should be handled by "myTestController.anyMethod"
+
+  Scenario: Answering OPTIONS requests no route matches
+    Given I have a web application with the config locations "/simpleTestContext.xml"
+    When I send the HTTP request "OPTIONS" "/http"
+    Then the handler should answer with the allowed methods "GET, POST, PUT, DELETE, PATCH, OPTIONS, HEAD"
+    When I send the HTTP request "OPTIONS" "/regex/42"
+    Then the handler should answer with the allowed methods "GET, OPTIONS, HEAD"
+    When I send the HTTP request "OPTIONS" "/noroute"
+    Then no handler should be found
+
+  Scenario: Mapping requests to a route by the format they accept
+    Given I have a web application with the config locations "/simpleTestContext.xml"
+    When I send the HTTP request "GET" "/format" with headers:
+      | name   | value            |
+      | accept | application/json |
+    Then the request should be handled by "myTestController.paramAction"
+    When I send the HTTP request "GET" "/format" with headers:
+      | name   | value     |
+      | accept | text/html |
+    Then the request should be handled by "myTestController.simpleAction"
+
+  Scenario: Mapping requests to a dynamic action
+    Given I have a web application with the config locations "/simpleTestContext.xml"
+    When I send the HTTP request "GET" "/dynamic/simpleAction"
+    Then the request should be handled by the action method "simpleAction"
+    When I send the HTTP request "GET" "/dynamic/PARAMACTION"
+    Then the request should be handled by the action method "paramAction"
+    When I send the HTTP request "GET" "/dynamic/simpleaction"
+    Then the request should be handled by the action method "simpleAction"
+
+  Scenario: Mapping a request overriden by its HTTP Header
+    Given I have a web application with the config locations "/simpleTestContext.xml"
+    When I send the HTTP request "GET" "/overridemethod" with headers:
+      | name                   | value  |
+      | x-http-method-override | PUT    |
+    Then the request should be handled by "myTestController.overrideMethod"
+
+  Scenario: Mapping a request overriden by its query string
+    Given I have a web application with the config locations "/simpleTestContext.xml"
+    When I send the HTTP request "GET" "/overridemethod" with query string "q=search&x-http-method-override=PUT"
+    Then the request should be handled by "myTestController.overrideMethod"
+
+  Scenario: Only overriding request methods with HTTP Headers
+    Given I have a web application with the config locations "/methodOverrideTestContext.xml"
+    When I send the HTTP request "GET" "/overridemethod" with query string "x-http-method-override=PUT"
+    Then no handler should be found
+    When I send the HTTP request "GET" "/overridemethod" with headers:
+      | name                   | value  |
+      | x-http-method-override | PUT    |
+    Then the request should be handled by "myTestController.overrideMethod"
+
+  Scenario: Mapping a request with a number regexp
+    Given I have a web application with the config locations "/simpleTestContext.xml"
+    When I send the HTTP request "GET" "/regex/42"
+    Then the request should be handled by "myTestController.regexNumberAction"
+
+  Scenario: Mapping a request with a string regexp
+    Given I have a web application with the config locations "/simpleTestContext.xml"
+    When I send the HTTP request "GET" "/regex/marvin"
+    Then the request should be handled by "myTestController.regexStringAction"
+
+  Scenario: Mapping a request with a string regexp
+    Given I have a web application with the config locations "/simpleTestContext.xml"
+    When I send the HTTP request "GET" "/caseinsensitive"
+    Then the request should be handled by "myTestController.caseInsensitive"
+
+  Scenario: Mapping a request with a route defined in an another configured file
+    Given I have a web application with the config locations "/multiplefilesTestContext.xml"
+    When I send the HTTP request "GET" "/additionalroute"
+    Then the request should be handled by "myTestController.additionalRouteFile"
+
+  Scenario: Mapping a request with a route defined in a wildcard-configured file
+    Given I have a web application with the config locations "/multiplefilesTestContext.xml"
+    When I send the HTTP request "GET" "/wildcard-b"
+    Then the request should be handled by "myTestController.wildcardB"
+
+  Scenario: Parsing route files in parallel
+    Given I have a web application with the config locations "/parallelParsingTestContext.xml"
+    Then the routes should be declared in the files "mappingroutes.conf, addroutes.conf, wildcard-a.conf, wildcard-b.conf", line by line
+    When I send the HTTP request "GET" "/param/shadowed"
+    Then the request should be handled by "myTestController.paramAction"
+    When I send the HTTP request "GET" "/wildcard-b"
+    Then the request should be handled by "myTestController.wildcardB"
+
+  Scenario: Mapping a request with a route defined in a file inside a jar
+    Given a jar "target/routes-test.jar" containing "mappingroutes.conf"
+    And I have a web application with the config locations "/jarTestContext.xml"
+    When I send the HTTP request "GET" "/simpleaction"
+    Then the request should be handled by "myTestController.simpleAction"
+
+  Scenario: Reporting the position of invalid route definitions
+    Then compiling a route snapshot from "invalidroutes.conf" should fail with "invalidroutes.conf]:4:9: route path without '/'"
+
+  Scenario: Binding static actions to their handlers when loading routes
+    Given I have a web application with the config locations "/simpleTestContext.xml"
+    When I send the HTTP request "GET" "/simpleaction"
+    Then the request should be handled by the handler bound to its route
+
+  Scenario: Rejecting a second RouterHandlerMapping while the first one is running
+    Given I have a web application with the config locations "/simpleTestContext.xml"
+    Then starting a second web application with the config locations "/simpleTestContext.xml" should fail with "a single RouterHandlerMapping can load routes at a time"
+    When I send the HTTP request "GET" "/simpleaction"
+    Then the request should be handled by the handler bound to its route
+
+  Scenario: Rejecting route files with unknown actions
+    Given a route file "target/reload-test/reloadroutes.conf" copied from "unknownactionroutes.conf"
+    Then starting a web application with the config locations "/reloadTestContext.xml" should fail with "reloadroutes.conf:4"
+
+  Scenario: Resolving ambiguous actions to the most specific method
+    Given I have a web application with the config locations "/ambiguousActionTestContext.xml"
+    When I send the HTTP request "GET" "/overloaded"
+    Then the request should be handled by the action method "overloadedAction" with 0 parameters
+    When I send the HTTP request "GET" "/inherited/value"
+    Then the request should be handled by the action method "inheritedAction" with 1 parameter
+
+  Scenario: Reloading changed route files in the background
+    Given a route file "target/reload-test/reloadroutes.conf" copied from "addroutes.conf"
+    And I have a web application with the config locations "/reloadTestContext.xml"
+    When I send the HTTP request "GET" "/additionalroute"
+    Then the request should be handled by "myTestController.additionalRouteFile"
+    When I add the route "GET /reloadedroute myTestController.simpleAction" to the route file "target/reload-test/reloadroutes.conf"
+    Then the request "GET" "/reloadedroute" should be handled by "myTestController.simpleAction" within 5 seconds
+    When I send the HTTP request "GET" "/additionalroute"
+    Then the request should be handled by "myTestController.additionalRouteFile"
+
+  Scenario: Reloading only the changed route files
+    Given a route file "target/incremental-test/mappingroutes.conf" copied from "mappingroutes.conf"
+    And a route file "target/incremental-test/reloadroutes.conf" copied from "addroutes.conf"
+    And I have a web application with the config locations "/incrementalReloadTestContext.xml"
+    When I send the HTTP request "GET" "/simpleaction" 2 times
+    Then the request should be handled by "myTestController.simpleAction"
+    When I remember the route handling the request
+    And I add the route "GET /reloadedroute myTestController.simpleAction" to the route file "target/incremental-test/reloadroutes.conf"
+    Then the request "GET" "/reloadedroute" should be handled by "myTestController.simpleAction" within 5 seconds
+    When I send the HTTP request "GET" "/simpleaction"
+    Then the request should be handled by the remembered route
+    And the route cache should count 2 hits
+
+  Scenario: Keeping only the last loaded route files when reloading
+    Given I have a web application with the config locations "/simpleTestContext.xml"
+    When I reload the route file "mappingroutes.conf"
+    And I remember the loaded route file
+    And I reload the route file "mappingroutes.conf" 3 times
+    Then the remembered route file should be collected
+    When I send the HTTP request "GET" "/simpleaction"
+    Then the request should be handled by "myTestController.simpleAction"
+
+  Scenario: Evicting the patterns of changed routes when reloading
+    Given an empty Router
+    When I reload a route file 2 times, changing the pattern of its route each time
+    And I count the route patterns
+    And I reload a route file 5 times, changing the pattern of its route each time
+    Then the route pattern count should not have changed
+
+  Scenario: Mapping requests while routes are reloaded
+    Given I have a web application with the config locations "/simpleTestContext.xml"
+    Then the request "GET" "/caseinsensitive" should be handled by "MyTestCONTROLLER.caseInsensitive" while "mappingroutes.conf" is reloaded 200 times
+
+  Scenario: Mapping a simple request with a servlet path and a context path
+    Given I have a web application configured locations "/simpleTestContext.xml" servletPath "/servlet" contextPath "/context"
+    When I send the HTTP request "GET" "/context/servlet/simpleaction"
+    Then the request should be handled by "myTestController.simpleAction"
+
+  # Testing issue https://github.com/resthub/springmvc-router/issues/41
+  Scenario: Mapping a request to the index with a null pathInfo
+    Given I have a web application configured locations "/simpleTestContext.xml" servletPath "/" contextPath "/context"
+    When I send the HTTP request "GET" "/context/simpleaction" with a null pathInfo
+    Then the request should be handled by "myTestController.simpleAction"
+
+  Scenario: Loading routes from a route snapshot
+    Given a route snapshot "target/routes-test.snapshot" compiled from "mappingroutes.conf"
+    And I have a web application with the config locations "/snapshotTestContext.xml"
+    Then the routes should be loaded from the route snapshot
+    When I send the HTTP request "GET" "/regex/42"
+    Then the request should be handled by "myTestController.regexNumberAction"
+    When I send the HTTP request "GET" "/param/myparam"
+    Then the request should be handled by "myTestController.paramAction"
+    When I send the HTTP request "GET" "/dynamic/simpleAction"
+    Then the request should be handled by the action method "simpleAction"
+
+  Scenario: Loading long route arguments from a route snapshot
+    Then a route snapshot compiled from a route with a 70000 characters long argument should load that argument
+
+  Scenario: Parsing route files when the route snapshot is stale
+    Given a route snapshot "target/routes-test.snapshot" compiled from "addroutes.conf"
+    And I have a web application with the config locations "/snapshotTestContext.xml"
+    Then the routes should not be loaded from the route snapshot
+    When I send the HTTP request "GET" "/simpleaction"
+    Then the request should be handled by "myTestController.simpleAction"
+
+  Scenario: Mapping requests with route patterns compiled on first use
+    Given I have a web application with the config locations "/lazyPatternsTestContext.xml"
+    When I send the HTTP request "GET" "/regex/42"
+    Then the request should be handled by "myTestController.regexNumberAction"
+    When I send the HTTP request "GET" "/regex/marvin"
+    Then the request should be handled by "myTestController.regexStringAction"
+    When I send the HTTP request "GET" "/param/myparam"
+    Then the request should be handled by "myTestController.paramAction"
+
+  Scenario: Mapping a simple request with the trie lookup strategy
+    Given I have a web application with the config locations "/trieTestContext.xml"
+    When I send the HTTP request "GET" "/simpleaction"
+    Then the request should be handled by "myTestController.simpleAction"
+
+  Scenario: Mapping a request with a given param with the trie lookup strategy
+    Given I have a web application with the config locations "/trieTestContext.xml"
+    When I send the HTTP request "GET" "/param/myparam"
+    Then the request should be handled by "myTestController.paramAction"
+
+  Scenario: Mapping requests with regexps with the trie lookup strategy
+    Given I have a web application with the config locations "/trieTestContext.xml"
+    When I send the HTTP request "GET" "/regex/marvin"
+    Then the request should be handled by "myTestController.regexStringAction"
+    When I send the HTTP request "GET" "/regex/42"
+    Then the request should be handled by "myTestController.regexNumberAction"
+
+  Scenario: Mapping a HEAD request with the trie lookup strategy
+    Given I have a web application with the config locations "/trieTestContext.xml"
+    When I send the HTTP request "HEAD" "/http"
+    Then the request should be handled by "myTestController.httpAction"
+
+  Scenario: No route defined for a request with the trie lookup strategy
+    Given I have a web application with the config locations "/trieTestContext.xml"
+    When I send the HTTP request "GET" "/regex/42/more"
+    Then no handler should be found
+
+  Scenario: Mapping requests with regexps with the automaton lookup strategy
+    Given I have a web application with the config locations "/automatonTestContext.xml"
+    When I send the HTTP request "GET" "/regex/marvin"
+    Then the request should be handled by "myTestController.regexStringAction"
+    When I send the HTTP request "GET" "/regex/42"
+    Then the request should be handled by "myTestController.regexNumberAction"
+
+  Scenario: Mapping a request to the first declared route with the automaton lookup strategy
+    Given I have a web application with the config locations "/automatonTestContext.xml"
+    When I send the HTTP request "GET" "/param/shadowed"
+    Then the request should be handled by "myTestController.paramAction"
+
+  Scenario: No route defined for a request with the automaton lookup strategy
+    Given I have a web application with the config locations "/automatonTestContext.xml"
+    When I send the HTTP request "GET" "/regex/42/more"
+    Then no handler should be found
+
+  Scenario: Mapping requests with the route cache
+    Given I have a web application with the config locations "/cacheTestContext.xml"
+    When I send the HTTP request "GET" "/param/myparam"
+    Then the request should be handled by "myTestController.paramAction"
+    When I send the HTTP request "GET" "/param/myparam"
+    Then the request should be handled by "myTestController.paramAction"
+    When I send the HTTP request "GET" "/param/shadowed"
+    Then the request should be handled by "myTestController.paramAction"
+    And the route cache should count 1 hit, 2 misses and 0 evictions
+
+  Scenario: Evicting least recently used requests from the route cache
+    Given I have a web application with the config locations "/cacheTestContext.xml"
+    When I send the HTTP request "GET" "/param/first"
+    And I send the HTTP request "GET" "/param/second"
+    And I send the HTTP request "GET" "/param/first"
+    And I send the HTTP request "GET" "/param/third"
+    And I send the HTTP request "GET" "/param/first"
+    Then the request should be handled by "myTestController.paramAction"
+    And the route cache should count 2 hits, 3 misses and 1 eviction
+
+  Scenario: Caching requests matching no route
+    Given I have a web application with the config locations "/cacheTestContext.xml"
+    When I send the HTTP request "GET" "/regex/42/more"
+    Then no handler should be found
+    When I send the HTTP request "GET" "/regex/42/more"
+    Then no handler should be found
+    When I send the HTTP request "GET" "/param/myparam"
+    Then the request should be handled by "myTestController.paramAction"
+    And the route cache should count 1 hit, 2 misses and 0 evictions
+
+  Scenario: Trying first the most hit routes
+    Given I have a web application with the config locations "/adaptiveOrderingTestContext.xml"
+    When I send the HTTP request "GET" "/regex/42" 300 times
+    Then the request should be handled by "myTestController.regexNumberAction"
+    And the route ordering should save 44 routes in 300 scans
+    When I send the HTTP request "GET" "/param/42"
+    Then the request should be handled by "myTestController.paramAction"
+    When I send the HTTP request "GET" "/regex/abc"
+    Then the request should be handled by "myTestController.regexStringAction"
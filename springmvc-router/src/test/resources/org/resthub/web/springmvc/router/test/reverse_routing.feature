@@ -88,4 +88,15 @@ Feature: Reverse routing support
     Given I have a route with method "GET" path "/simpleaction" action "myTestController.simpleAction"
     And the current request is processed within a context path "/context" and servlet path "/servlet"
     When I try to reverse route "myTestController.simpleAction"
-    Then I should get an action with path "/context/servlet/simpleaction"
\ No newline at end of file
+    Then I should get an action with path "/context/servlet/simpleaction"
+
+  Scenario: Reverse routing an URL with a regexp and a given subdomain compiled on first use
+    Given route patterns compiled on first use
+    And I have routes:
+      | method | path                                          | action                                | params  |
+      | GET    | {subdomain}.domain.org/bind/{<[a-z]+>name}    | myTestController.bindRegexpHostAction |         |
+    When I try to reverse route "myTestController.bindRegexpHostAction" with params:
+      | key        | value  |
+      | subdomain  | sub    |
+      | name       | marvin |
+    Then I should get an action with path "/bind/marvin" and host "sub.domain.org"
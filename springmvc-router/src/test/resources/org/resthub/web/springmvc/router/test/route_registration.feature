@@ -0,0 +1,71 @@
+@registration
+Feature: Route registration at runtime
+  As a developer of a multi-tenant application
+  I want to register, replace and remove routes at runtime
+  In order to serve the routes of new tenants without reloading route files
+
+  Background:
+    Given an empty Router
+    And I have a route with method "GET" path "/home" action "homeController.show"
+
+  Scenario: Registering routes in a transaction
+    When I register the routes:
+      | id      | method | path                | action               |
+      | a.users | GET    | a.example.org/users | userController.listA |
+      | b.users | GET    | b.example.org/users | userController.listB |
+    Then the request "GET" "/users" to host "a.example.org" should be routed to "userController.listA"
+    And the request "GET" "/users" to host "b.example.org" should be routed to "userController.listB"
+    And the request "GET" "/home" to host "a.example.org" should be routed to "homeController.show"
+    And the request "GET" "/users" to host "c.example.org" should match no route
+
+  Scenario: Replacing and removing registered routes
+    Given I register the routes:
+      | id      | method | path                | action               |
+      | a.users | GET    | a.example.org/users | userController.listA |
+      | b.users | GET    | b.example.org/users | userController.listB |
+    When I replace the route "a.users" with "GET" "a.example.org/users" "userController.searchA" and remove the route "b.users"
+    Then the request "GET" "/users" to host "a.example.org" should be routed to "userController.searchA"
+    And the request "GET" "/users" to host "b.example.org" should match no route
+
+  Scenario: Trying registered routes after the other routes, in registration order
+    When I register the routes:
+      | id        | method | path        | action                 |
+      | items.id  | GET    | /items/{id} | itemController.show    |
+      | items.new | GET    | /items/new  | itemController.newItem |
+      | home      | GET    | /home       | homeController.other   |
+    Then the request "GET" "/items/new" to host "example.org" should be routed to "itemController.show"
+    And the request "GET" "/home" to host "example.org" should be routed to "homeController.show"
+    When I replace the route "items.id" with "GET" "/items/{<[0-9]+>id}" "itemController.show" and remove the route "home"
+    Then the request "GET" "/items/new" to host "example.org" should be routed to "itemController.newItem"
+    And the request "GET" "/items/12" to host "example.org" should be routed to "itemController.show"
+
+  Scenario: Rejecting a transaction with an unknown route
+    When I register the route "c.users" with "GET" "c.example.org/users" "userController.listC" and remove the route "d.users"
+    Then the route transaction should fail with "No route is registered with the id d.users"
+    And the request "GET" "/users" to host "c.example.org" should match no route
+
+  Scenario: Committing a rejected transaction again
+    When I register the route "c.users" with "GET" "c.example.org/users" "userController.listC" and remove the route "d.users"
+    Then the route transaction should fail with "No route is registered with the id d.users"
+    When I register the routes:
+      | id      | method | path                | action               |
+      | d.users | GET    | d.example.org/users | userController.listD |
+    And I commit the rejected route transaction again
+    Then the request "GET" "/users" to host "c.example.org" should be routed to "userController.listC"
+    And the request "GET" "/users" to host "d.example.org" should match no route
+
+  Scenario: Adding routes by position between the other routes
+    Given I register the routes:
+      | id    | method | path        | action                    |
+      | items | GET    | /items/{id} | itemController.registered |
+    When I append the route "GET" "/items/{id}" "itemController.appended"
+    Then the request "GET" "/items/new" to host "example.org" should be routed to "itemController.appended"
+    When I add the route "GET" "/items/{<[0-9]+>id}" "itemController.prepended" at position 0
+    And I add the route "GET" "/items/new" "itemController.newItem" at position 1
+    Then the request "GET" "/items/12" to host "example.org" should be routed to "itemController.prepended"
+    And the request "GET" "/items/new" to host "example.org" should be routed to "itemController.newItem"
+    And the request "GET" "/items/other" to host "example.org" should be routed to "itemController.appended"
+    When I add 20 times the route "GET" "/items/copy" "itemController.copy" at position 1, numbering its action
+    Then the request "GET" "/items/copy" to host "example.org" should be routed to "itemController.copy20"
+    And the request "GET" "/items/12" to host "example.org" should be routed to "itemController.prepended"
+    And the request "GET" "/items/new" to host "example.org" should be routed to "itemController.newItem"